@@ -0,0 +1,56 @@
+package com.boydti.fawe.benchmark;
+
+import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.function.RegionFunction;
+import com.sk89q.worldedit.function.operation.Operations;
+import com.sk89q.worldedit.function.visitor.BreadthFirstSearch;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A BreadthFirstSearch flood filling a cube (the same traversal used by the recursive visitors)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BreadthFirstSearchBenchmark {
+
+    @Param({"16", "48"})
+    public int size;
+
+    @Benchmark
+    public int search() {
+        final int max = size - 1;
+        RegionFunction function = new RegionFunction() {
+            @Override
+            public boolean apply(Vector position) throws WorldEditException {
+                return true;
+            }
+        };
+        BreadthFirstSearch search = new BreadthFirstSearch(function) {
+            @Override
+            protected boolean isVisitable(Vector from, Vector to) {
+                int x = to.getBlockX();
+                int y = to.getBlockY();
+                int z = to.getBlockZ();
+                return x >= 0 && y >= 0 && z >= 0 && x <= max && y <= max && z <= max;
+            }
+        };
+        search.visit(new Vector(0, 0, 0));
+        Operations.completeBlindly(search);
+        return search.getAffected();
+    }
+}
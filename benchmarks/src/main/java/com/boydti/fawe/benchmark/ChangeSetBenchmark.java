@@ -0,0 +1,50 @@
+package com.boydti.fawe.benchmark;
+
+import com.boydti.fawe.config.Settings;
+import com.boydti.fawe.object.changeset.MemoryOptimizedHistory;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * FaweStreamChangeSet#add for a 32x32x32 edit, at each history compression level
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ChangeSetBenchmark {
+
+    @Param({"0", "1", "4", "9"})
+    public int compression;
+
+    @Setup
+    public void setup() {
+        Settings.HISTORY.COMPRESSION_LEVEL = compression;
+    }
+
+    @Benchmark
+    public int add() {
+        MemoryOptimizedHistory history = new MemoryOptimizedHistory(null);
+        for (int y = 0; y < 32; y++) {
+            for (int z = 0; z < 32; z++) {
+                for (int x = 0; x < 32; x++) {
+                    history.add(x, y, z, 16, (y & 15) << 4);
+                }
+            }
+        }
+        history.flush();
+        return history.getCompressedSize();
+    }
+}
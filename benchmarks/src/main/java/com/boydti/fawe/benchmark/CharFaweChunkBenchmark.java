@@ -0,0 +1,72 @@
+package com.boydti.fawe.benchmark;
+
+import com.boydti.fawe.config.Settings;
+import com.boydti.fawe.example.MemoryFaweChunk;
+import com.boydti.fawe.example.MemoryFaweQueue;
+import com.boydti.fawe.wrappers.MemoryWorld;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Setting and getting every block in a CharFaweChunk
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CharFaweChunkBenchmark {
+
+    @Param({"false", "true"})
+    public boolean palette;
+
+    private MemoryFaweQueue queue;
+    private MemoryFaweChunk full;
+
+    @Setup
+    public void setup() {
+        Settings.QUEUE.PALETTE_SECTIONS = palette;
+        queue = new MemoryWorld("benchmark").newQueue();
+        full = fill(new MemoryFaweChunk(queue, 0, 0));
+    }
+
+    private MemoryFaweChunk fill(MemoryFaweChunk chunk) {
+        for (int y = 0; y < 256; y++) {
+            int id = 1 + (y & 7);
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    chunk.setBlock(x, y, z, id, x & 3);
+                }
+            }
+        }
+        return chunk;
+    }
+
+    @Benchmark
+    public MemoryFaweChunk set() {
+        return fill(new MemoryFaweChunk(queue, 0, 0));
+    }
+
+    @Benchmark
+    public void get(Blackhole hole) {
+        for (int y = 0; y < 256; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    hole.consume(full.getBlockCombinedId(x, y, z));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.boydti.fawe.benchmark;
+
+import com.boydti.fawe.object.clipboard.MemoryOptimizedClipboard;
+import com.sk89q.worldedit.blocks.BaseBlock;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Setting and getting every block of a MemoryOptimizedClipboard
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ClipboardBenchmark {
+
+    private static final int SIZE = 64;
+
+    @Param({"1", "9"})
+    public int compression;
+
+    private BaseBlock[] blocks;
+    private MemoryOptimizedClipboard full;
+
+    @Setup
+    public void setup() {
+        blocks = new BaseBlock[16];
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = new BaseBlock(1 + (i >> 2), i & 3);
+        }
+        full = fill(new MemoryOptimizedClipboard(SIZE, SIZE, SIZE, compression));
+    }
+
+    private MemoryOptimizedClipboard fill(MemoryOptimizedClipboard clipboard) {
+        for (int y = 0; y < SIZE; y++) {
+            for (int z = 0; z < SIZE; z++) {
+                for (int x = 0; x < SIZE; x++) {
+                    clipboard.setBlock(x, y, z, blocks[(x + y) & 15]);
+                }
+            }
+        }
+        return clipboard;
+    }
+
+    @Benchmark
+    public MemoryOptimizedClipboard set() {
+        return fill(new MemoryOptimizedClipboard(SIZE, SIZE, SIZE, compression));
+    }
+
+    @Benchmark
+    public void get(Blackhole hole) {
+        for (int y = 0; y < SIZE; y++) {
+            for (int z = 0; z < SIZE; z++) {
+                for (int x = 0; x < SIZE; x++) {
+                    hole.consume(full.getBlock(x, y, z));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.boydti.fawe.benchmark;
+
+import com.boydti.fawe.util.MainUtil;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * MainUtil#compress and MainUtil#decompress on a block sized like the clipboard blocks, at each level
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CompressionBenchmark {
+
+    @Param({"0", "1", "4", "9", "17"})
+    public int level;
+
+    private byte[] raw;
+    private byte[] compressed;
+    private byte[] compressBuffer;
+    private byte[] decompressBuffer;
+
+    @Setup
+    public void setup() {
+        // Runs of ids with some noise, similar to terrain
+        raw = new byte[1 << 20];
+        long seed = 0x5DEECE66DL;
+        for (int i = 0; i < raw.length; i++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            raw[i] = (byte) ((i >> 8) & 7);
+            if ((seed >>> 60) == 0) {
+                raw[i] = (byte) (seed >>> 52);
+            }
+        }
+        compressBuffer = new byte[MainUtil.getMaxCompressedLength(raw.length)];
+        decompressBuffer = new byte[raw.length];
+        compressed = MainUtil.compress(raw, null, level);
+    }
+
+    @Benchmark
+    public byte[] compress() {
+        return MainUtil.compress(raw, compressBuffer, level);
+    }
+
+    @Benchmark
+    public byte[] decompress() {
+        return MainUtil.decompress(compressed, decompressBuffer, raw.length, level);
+    }
+}
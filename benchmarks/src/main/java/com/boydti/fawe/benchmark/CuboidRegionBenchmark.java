@@ -0,0 +1,53 @@
+package com.boydti.fawe.benchmark;
+
+import com.sk89q.worldedit.BlockVector;
+import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The chunk ordered CuboidRegion iterator compared to the original one
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CuboidRegionBenchmark {
+
+    private CuboidRegion region;
+
+    @Setup
+    public void setup() {
+        region = new CuboidRegion(new Vector(-37, 0, -21), new Vector(90, 63, 100));
+    }
+
+    @Benchmark
+    public void iterator(Blackhole hole) {
+        Iterator<BlockVector> iter = region.iterator();
+        while (iter.hasNext()) {
+            hole.consume(iter.next());
+        }
+    }
+
+    @Benchmark
+    public void iteratorOld(Blackhole hole) {
+        Iterator<BlockVector> iter = region.iterator_old();
+        while (iter.hasNext()) {
+            hole.consume(iter.next());
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.boydti.fawe.benchmark;
+
+import com.boydti.fawe.object.FaweLimit;
+import com.boydti.fawe.wrappers.MemoryWorld;
+import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.MaxChangedBlocksException;
+import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.blocks.BaseBlock;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * An EditSession setting a cuboid in a MemoryWorld (with and without history)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EditSessionBenchmark {
+
+    @Param({"32", "96"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean fastmode;
+
+    @Benchmark
+    public int setBlocks() throws MaxChangedBlocksException {
+        MemoryWorld world = new MemoryWorld("benchmark");
+        EditSession session = new EditSession(world, null, FaweLimit.MAX, null, null, false, fastmode, false, null, null, null, null);
+        CuboidRegion region = new CuboidRegion(new Vector(0, 0, 0), new Vector(size - 1, size - 1, size - 1));
+        session.setBlocks(region, new BaseBlock(1));
+        session.flushQueue();
+        return session.getBlockChangeCount();
+    }
+}
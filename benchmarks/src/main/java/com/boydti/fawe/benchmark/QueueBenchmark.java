@@ -0,0 +1,63 @@
+package com.boydti.fawe.benchmark;
+
+import com.boydti.fawe.example.MemoryFaweQueue;
+import com.boydti.fawe.wrappers.MemoryWorld;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * MappedFaweQueue#setBlock, placing, and getCombinedId4Data over a cube (with a new world each invocation)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class QueueBenchmark {
+
+    @Param({"16", "64"})
+    public int size;
+
+    @Benchmark
+    public MemoryFaweQueue setBlock() {
+        MemoryFaweQueue queue = new MemoryWorld("benchmark").newQueue();
+        for (int y = 0; y < size; y++) {
+            for (int z = 0; z < size; z++) {
+                for (int x = 0; x < size; x++) {
+                    queue.setBlock(x, y, z, 1, 0);
+                }
+            }
+        }
+        return queue;
+    }
+
+    @Benchmark
+    public MemoryFaweQueue setBlockAndFlush() {
+        MemoryFaweQueue queue = setBlock();
+        queue.flush();
+        return queue;
+    }
+
+    @Benchmark
+    public void setBlockAndRead(Blackhole hole) {
+        MemoryFaweQueue queue = setBlockAndFlush();
+        for (int y = 0; y < size; y++) {
+            for (int z = 0; z < size; z++) {
+                for (int x = 0; x < size; x++) {
+                    hole.consume(queue.getCombinedId4Data(x, y, z));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.boydti.fawe.benchmark;
+
+import com.boydti.fawe.config.Settings;
+import com.boydti.fawe.jnbt.SchematicStreamer;
+import com.sk89q.jnbt.ByteArrayTag;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.IntTag;
+import com.sk89q.jnbt.ListTag;
+import com.sk89q.jnbt.NBTInputStream;
+import com.sk89q.jnbt.NBTOutputStream;
+import com.sk89q.jnbt.ShortTag;
+import com.sk89q.jnbt.StringTag;
+import com.sk89q.jnbt.Tag;
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loading a gzipped .schematic with the SchematicStreamer (into a memory clipboard)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SchematicBenchmark {
+
+    @Param({"64", "128"})
+    public int size;
+
+    private byte[] schematic;
+    private final UUID uuid = UUID.randomUUID();
+
+    @Setup
+    public void setup() throws IOException {
+        Settings.CLIPBOARD.USE_DISK = false;
+        int volume = size * size * size;
+        byte[] ids = new byte[volume];
+        byte[] datas = new byte[volume];
+        for (int i = 0; i < volume; i++) {
+            ids[i] = (byte) (1 + ((i / (size * size)) & 7));
+            datas[i] = (byte) (i & 3);
+        }
+        Map<String, Tag> map = new HashMap<>();
+        map.put("Width", new ShortTag((short) size));
+        map.put("Height", new ShortTag((short) size));
+        map.put("Length", new ShortTag((short) size));
+        map.put("Materials", new StringTag("Alpha"));
+        map.put("WEOriginX", new IntTag(0));
+        map.put("WEOriginY", new IntTag(0));
+        map.put("WEOriginZ", new IntTag(0));
+        map.put("WEOffsetX", new IntTag(0));
+        map.put("WEOffsetY", new IntTag(0));
+        map.put("WEOffsetZ", new IntTag(0));
+        map.put("Blocks", new ByteArrayTag(ids));
+        map.put("Data", new ByteArrayTag(datas));
+        map.put("Entities", new ListTag(CompoundTag.class, new ArrayList<CompoundTag>()));
+        map.put("TileEntities", new ListTag(CompoundTag.class, new ArrayList<CompoundTag>()));
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (NBTOutputStream out = new NBTOutputStream(new GZIPOutputStream(baos))) {
+            out.writeNamedTag("Schematic", new CompoundTag(map));
+        }
+        schematic = baos.toByteArray();
+    }
+
+    @Benchmark
+    public Clipboard load() throws IOException {
+        NBTInputStream in = new NBTInputStream(new GZIPInputStream(new ByteArrayInputStream(schematic)));
+        try {
+            return new SchematicStreamer(in, uuid).getClipboard();
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -14,14 +14,17 @@ import java.io.File;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import org.bukkit.Bukkit;
 import org.bukkit.Chunk;
+import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.WorldCreator;
+import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.world.ChunkUnloadEvent;
@@ -147,6 +150,22 @@ public abstract class BukkitQueue_0<CHUNK, CHUNKSECTIONS, SECTION> extends NMSMa
         return Bukkit.getWorld(getWorldName());
     }
 
+    @Override
+    public long[] getPlayerChunks() {
+        List<Player> players = getWorld().getPlayers();
+        long[] chunks = new long[players.size()];
+        for (int i = 0; i < chunks.length; i++) {
+            Location loc = players.get(i).getLocation();
+            chunks[i] = MathMan.pairInt(loc.getBlockX() >> 4, loc.getBlockZ() >> 4);
+        }
+        return chunks;
+    }
+
+    @Override
+    public int getViewDistance() {
+        return Bukkit.getViewDistance();
+    }
+
     @Override
     public boolean isChunkLoaded(World world, int x, int z) {
         return world.isChunkLoaded(x, z);
@@ -34,6 +34,12 @@ public class BukkitChunk_1_10 extends CharFaweChunk<Chunk> {
         return ((com.boydti.fawe.bukkit.v1_10.BukkitQueue_1_10) getParent()).getWorld().getChunkAt(getX(), getZ());
     }
 
+    @Override
+    public void reset() {
+        super.reset();
+        sectionPalettes = null;
+    }
+
     @Override
     public CharFaweChunk<Chunk> copy(boolean shallow) {
         BukkitChunk_1_10 value = (BukkitChunk_1_10) super.copy(shallow);
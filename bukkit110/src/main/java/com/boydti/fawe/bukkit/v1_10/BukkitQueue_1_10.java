@@ -3,10 +3,12 @@ package com.boydti.fawe.bukkit.v1_10;
 import com.boydti.fawe.Fawe;
 import com.boydti.fawe.FaweCache;
 import com.boydti.fawe.bukkit.v0.BukkitQueue_0;
+import com.boydti.fawe.config.Settings;
 import com.boydti.fawe.example.CharFaweChunk;
 import com.boydti.fawe.object.BytePair;
 import com.boydti.fawe.object.FaweChunk;
 import com.boydti.fawe.object.RunnableVal;
+import com.boydti.fawe.object.collection.ObjectPool;
 import com.boydti.fawe.util.MainUtil;
 import com.boydti.fawe.util.MathMan;
 import com.boydti.fawe.util.ReflectionUtils;
@@ -49,6 +51,7 @@ import net.minecraft.server.v1_10_R1.MinecraftServer;
 import net.minecraft.server.v1_10_R1.NBTTagCompound;
 import net.minecraft.server.v1_10_R1.NibbleArray;
 import net.minecraft.server.v1_10_R1.PacketPlayOutMapChunk;
+import net.minecraft.server.v1_10_R1.PacketPlayOutMultiBlockChange;
 import net.minecraft.server.v1_10_R1.PlayerChunk;
 import net.minecraft.server.v1_10_R1.PlayerChunkMap;
 import net.minecraft.server.v1_10_R1.ServerNBTManager;
@@ -112,6 +115,11 @@ public class BukkitQueue_1_10 extends BukkitQueue_0<Chunk, ChunkSection[], Chunk
         section.getSkyLightArray().a(x & 15, y & 15, z & 15, value);
     }
 
+    @Override
+    public void fillSkyLight(ChunkSection section, int layer, int value) {
+        Arrays.fill(section.getSkyLightArray().asBytes(), (byte) (value | (value << 4)));
+    }
+
     @Override
     public void setBlockLight(ChunkSection section, int x, int y, int z, int value) {
         section.getEmittedLightArray().a(x & 15, y & 15, z & 15, value);
@@ -226,6 +234,29 @@ public class BukkitQueue_1_10 extends BukkitQueue_0<Chunk, ChunkSection[], Chunk
         }
     }
 
+    @Override
+    public void getSectionSnapshot(ChunkSection section, char[] snapshot) {
+        DataPaletteBlock dataPalette = section.getBlocks();
+        // Sections usually contain few block states, so only convert when the state changes
+        IBlockData last = null;
+        char combined = 0;
+        int index = 0;
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    IBlockData ibd = dataPalette.a(x, y, z);
+                    if (ibd != last) {
+                        last = ibd;
+                        Block block = ibd.getBlock();
+                        int id = Block.getId(block);
+                        combined = (char) (FaweCache.hasData(id) ? (id << 4) + block.toLegacyData(ibd) : id << 4);
+                    }
+                    snapshot[index++] = combined;
+                }
+            }
+        }
+    }
+
     @Override
     public int getOpacity(ChunkSection section, int x, int y, int z) {
         DataPaletteBlock dataPalette = section.getBlocks();
@@ -284,6 +315,30 @@ public class BukkitQueue_1_10 extends BukkitQueue_0<Chunk, ChunkSection[], Chunk
         }
     }
 
+    @Override
+    public boolean sendBlockChanges(int x, int z, short[] positions, int length) {
+        World world = getWorld();
+        if (!world.isChunkLoaded(x, z)) {
+            return true;
+        }
+        try {
+            net.minecraft.server.v1_10_R1.Chunk nmsChunk = ((CraftChunk) world.getChunkAt(x, z)).getHandle();
+            WorldServer w = (WorldServer) nmsChunk.getWorld();
+            PlayerChunk playerChunk = w.getPlayerChunkMap().getChunk(x, z);
+            if (playerChunk == null || playerChunk.c.isEmpty()) {
+                return true;
+            }
+            PacketPlayOutMultiBlockChange packet = new PacketPlayOutMultiBlockChange(length, positions, nmsChunk);
+            for (EntityPlayer player : playerChunk.c) {
+                player.playerConnection.sendPacket(packet);
+            }
+            return true;
+        } catch (Throwable e) {
+            MainUtil.handleError(e);
+            return false;
+        }
+    }
+
     public boolean hasEntities(net.minecraft.server.v1_10_R1.Chunk nmsChunk) {
         try {
             final Collection<Entity>[] entities = (Collection<Entity>[]) getEntitySlices.invoke(nmsChunk);
@@ -377,6 +432,14 @@ public class BukkitQueue_1_10 extends BukkitQueue_0<Chunk, ChunkSection[], Chunk
         fieldSection.set(section, palette);
     }
 
+    /**
+     * Create a section<br>
+     *     - The ids are copied into the section's palette, so the array can still be recycled
+     * @param y2
+     * @param flag
+     * @param array
+     * @return
+     */
     public ChunkSection newChunkSection(int y2, boolean flag, char[] array) {
         try {
             if (array == null) {
@@ -411,7 +474,7 @@ public class BukkitQueue_1_10 extends BukkitQueue_0<Chunk, ChunkSection[], Chunk
                 ChunkSection section = sections[layer];
                 if (section != null) {
                     short solid = 0;
-                    char[] previousLayer = idPrevious[layer] = new char[4096];
+                    char[] previousLayer = idPrevious[layer] = CharFaweChunk.newSection();
                     DataPaletteBlock blocks = section.getBlocks();
                     for (int j = 0; j < 4096; j++) {
                         int x = FaweCache.CACHE_X[0][j];
@@ -737,8 +800,23 @@ public class BukkitQueue_1_10 extends BukkitQueue_0<Chunk, ChunkSection[], Chunk
         return true;
     }
 
+    private static final ObjectPool<BukkitChunk_1_10> CHUNK_POOL = new ObjectPool<>(Settings.QUEUE.POOL.CHUNKS);
+
     @Override
     public FaweChunk getFaweChunk(int x, int z) {
-        return new com.boydti.fawe.bukkit.v1_10.BukkitChunk_1_10(this, x, z);
+        BukkitChunk_1_10 chunk = CHUNK_POOL.poll();
+        if (chunk == null) {
+            return new com.boydti.fawe.bukkit.v1_10.BukkitChunk_1_10(this, x, z);
+        }
+        chunk.setLoc(this, x, z);
+        return chunk;
+    }
+
+    @Override
+    public void recycle(FaweChunk chunk) {
+        if (Settings.QUEUE.POOL.ENABLED && chunk instanceof BukkitChunk_1_10) {
+            chunk.reset();
+            CHUNK_POOL.offer((BukkitChunk_1_10) chunk);
+        }
     }
 }
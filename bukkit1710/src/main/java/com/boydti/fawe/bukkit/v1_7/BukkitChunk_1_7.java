@@ -37,9 +37,9 @@ public class BukkitChunk_1_7 extends CharFaweChunk<Chunk> {
         int i = FaweCache.CACHE_I[y][x][z];
         int j = FaweCache.CACHE_J[y][x][z];
         byte[] vs = this.byteIds[i];
-        char[] vs2 = this.ids[i];
+        char[] vs2 = this.getIdArray(i);
         if (vs2 == null) {
-            vs2 = this.ids[i] = new char[4096];
+            vs2 = this.ids[i] = newSection();
         }
         if (vs == null) {
             vs = this.byteIds[i] = new byte[4096];
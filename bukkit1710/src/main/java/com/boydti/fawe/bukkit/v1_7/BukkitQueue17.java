@@ -615,6 +615,11 @@ public class BukkitQueue17 extends BukkitQueue_0<Chunk, ChunkSection[], ChunkSec
         section.setSkyLight(x & 15, y & 15, z & 15, value);
     }
 
+    @Override
+    public void fillSkyLight(ChunkSection section, int layer, int value) {
+        Arrays.fill(section.getSkyLightArray().a, (byte) (value | (value << 4)));
+    }
+
     @Override
     public void setBlockLight(ChunkSection section, int x, int y, int z, int value) {
         section.setEmittedLight(x & 15, y & 15, z & 15, value);
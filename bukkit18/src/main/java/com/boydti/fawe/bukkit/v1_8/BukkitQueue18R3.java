@@ -21,6 +21,7 @@ import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -42,6 +43,7 @@ import net.minecraft.server.v1_8_R3.MinecraftServer;
 import net.minecraft.server.v1_8_R3.NBTTagCompound;
 import net.minecraft.server.v1_8_R3.NibbleArray;
 import net.minecraft.server.v1_8_R3.PacketPlayOutMapChunk;
+import net.minecraft.server.v1_8_R3.PacketPlayOutMultiBlockChange;
 import net.minecraft.server.v1_8_R3.PlayerChunkMap;
 import net.minecraft.server.v1_8_R3.ServerNBTManager;
 import net.minecraft.server.v1_8_R3.TileEntity;
@@ -117,6 +119,11 @@ public class BukkitQueue18R3 extends BukkitQueue_0<Chunk, ChunkSection[], ChunkS
         return ls[FaweCache.CACHE_J[y][x & 15][z & 15]];
     }
 
+    @Override
+    public void getSectionSnapshot(ChunkSection section, char[] snapshot) {
+        System.arraycopy(section.getIdArray(), 0, snapshot, 0, 4096);
+    }
+
     @Override
     public boolean isChunkLoaded(World world, int x, int z) {
         return world.isChunkLoaded(x, z);
@@ -437,19 +444,7 @@ public class BukkitQueue18R3 extends BukkitQueue_0<Chunk, ChunkSection[], ChunkS
             net.minecraft.server.v1_8_R3.Chunk nmsChunk = ((CraftChunk) chunk).getHandle();
             WorldServer w = (WorldServer) nmsChunk.getWorld();
             PlayerChunkMap chunkMap = w.getPlayerChunkMap();
-            int x = nmsChunk.locX;
-            int z = nmsChunk.locZ;
-            if (!chunkMap.isChunkInUse(x, z)) {
-                return;
-            }
-            Field fieldChunkMap = chunkMap.getClass().getDeclaredField("d");
-            fieldChunkMap.setAccessible(true);
-            LongHashMap<Object> map = (LongHashMap<Object>) fieldChunkMap.get(chunkMap);
-            long pair = (long) x + 2147483647L | (long) z + 2147483647L << 32;
-            Object playerChunk = map.getEntry(pair);
-            Field fieldPlayers = playerChunk.getClass().getDeclaredField("b");
-            fieldPlayers.setAccessible(true);
-            Collection<EntityPlayer> players = (Collection<EntityPlayer>) fieldPlayers.get(playerChunk);
+            Collection<EntityPlayer> players = getPlayers(chunkMap, nmsChunk.locX, nmsChunk.locZ);
             if (players.isEmpty()) {
                 return;
             }
@@ -471,6 +466,44 @@ public class BukkitQueue18R3 extends BukkitQueue_0<Chunk, ChunkSection[], ChunkS
         }
     }
 
+    @Override
+    public boolean sendBlockChanges(int x, int z, short[] positions, int length) {
+        World world = getWorld();
+        if (!world.isChunkLoaded(x, z)) {
+            return true;
+        }
+        try {
+            net.minecraft.server.v1_8_R3.Chunk nmsChunk = ((CraftChunk) world.getChunkAt(x, z)).getHandle();
+            WorldServer w = (WorldServer) nmsChunk.getWorld();
+            Collection<EntityPlayer> players = getPlayers(w.getPlayerChunkMap(), x, z);
+            if (players.isEmpty()) {
+                return true;
+            }
+            PacketPlayOutMultiBlockChange packet = new PacketPlayOutMultiBlockChange(length, positions, nmsChunk);
+            for (EntityPlayer player : players) {
+                player.playerConnection.sendPacket(packet);
+            }
+            return true;
+        } catch (Throwable e) {
+            MainUtil.handleError(e);
+            return false;
+        }
+    }
+
+    private Collection<EntityPlayer> getPlayers(PlayerChunkMap chunkMap, int x, int z) throws NoSuchFieldException, IllegalAccessException {
+        if (!chunkMap.isChunkInUse(x, z)) {
+            return Collections.emptyList();
+        }
+        Field fieldChunkMap = chunkMap.getClass().getDeclaredField("d");
+        fieldChunkMap.setAccessible(true);
+        LongHashMap<Object> map = (LongHashMap<Object>) fieldChunkMap.get(chunkMap);
+        long pair = (long) x + 2147483647L | (long) z + 2147483647L << 32;
+        Object playerChunk = map.getEntry(pair);
+        Field fieldPlayers = playerChunk.getClass().getDeclaredField("b");
+        fieldPlayers.setAccessible(true);
+        return (Collection<EntityPlayer>) fieldPlayers.get(playerChunk);
+    }
+
     public boolean hasEntities(net.minecraft.server.v1_8_R3.Chunk nmsChunk) {
         for (int i = 0; i < nmsChunk.entitySlices.length; i++) {
             List<Entity> slice = nmsChunk.entitySlices[i];
@@ -588,6 +621,11 @@ public class BukkitQueue18R3 extends BukkitQueue_0<Chunk, ChunkSection[], ChunkS
         section.a(x & 15, y & 15, z & 15, value);
     }
 
+    @Override
+    public void fillSkyLight(ChunkSection section, int layer, int value) {
+        Arrays.fill(section.getSkyLightArray().a(), (byte) (value | (value << 4)));
+    }
+
     @Override
     public void setBlockLight(ChunkSection section, int x, int y, int z, int value) {
         section.b(x & 15, y & 15, z & 15, value);
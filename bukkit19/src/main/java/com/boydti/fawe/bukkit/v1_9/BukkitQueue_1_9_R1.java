@@ -50,6 +50,7 @@ import net.minecraft.server.v1_9_R2.MinecraftServer;
 import net.minecraft.server.v1_9_R2.NBTTagCompound;
 import net.minecraft.server.v1_9_R2.NibbleArray;
 import net.minecraft.server.v1_9_R2.PacketPlayOutMapChunk;
+import net.minecraft.server.v1_9_R2.PacketPlayOutMultiBlockChange;
 import net.minecraft.server.v1_9_R2.PlayerChunk;
 import net.minecraft.server.v1_9_R2.PlayerChunkMap;
 import net.minecraft.server.v1_9_R2.ServerNBTManager;
@@ -160,6 +161,30 @@ public class BukkitQueue_1_9_R1 extends BukkitQueue_0<Chunk, ChunkSection[], Chu
         }
     }
 
+    @Override
+    public boolean sendBlockChanges(int x, int z, short[] positions, int length) {
+        World world = getWorld();
+        if (!world.isChunkLoaded(x, z)) {
+            return true;
+        }
+        try {
+            net.minecraft.server.v1_9_R2.Chunk nmsChunk = ((CraftChunk) world.getChunkAt(x, z)).getHandle();
+            WorldServer w = (WorldServer) nmsChunk.getWorld();
+            PlayerChunk playerChunk = w.getPlayerChunkMap().getChunk(x, z);
+            if (playerChunk == null || playerChunk.c.isEmpty()) {
+                return true;
+            }
+            PacketPlayOutMultiBlockChange packet = new PacketPlayOutMultiBlockChange(length, positions, nmsChunk);
+            for (EntityPlayer player : playerChunk.c) {
+                player.playerConnection.sendPacket(packet);
+            }
+            return true;
+        } catch (Throwable e) {
+            MainUtil.handleError(e);
+            return false;
+        }
+    }
+
     public boolean hasEntities(net.minecraft.server.v1_9_R2.Chunk nmsChunk) {
         for (int i = 0; i < nmsChunk.entitySlices.length; i++) {
             List<Entity> slice = nmsChunk.entitySlices[i];
@@ -322,6 +347,14 @@ public class BukkitQueue_1_9_R1 extends BukkitQueue_0<Chunk, ChunkSection[], Chu
         fieldSection.set(section, palette);
     }
 
+    /**
+     * Create a section<br>
+     *     - The ids are copied into the section's palette, so the array can still be recycled
+     * @param y2
+     * @param flag
+     * @param array
+     * @return
+     */
     public ChunkSection newChunkSection(int y2, boolean flag, char[] array) {
         try {
             if (array == null) {
@@ -715,6 +748,11 @@ public class BukkitQueue_1_9_R1 extends BukkitQueue_0<Chunk, ChunkSection[], Chu
         section.getSkyLightArray().a(x & 15, y & 15, z & 15, value);
     }
 
+    @Override
+    public void fillSkyLight(ChunkSection section, int layer, int value) {
+        Arrays.fill(section.getSkyLightArray().asBytes(), (byte) (value | (value << 4)));
+    }
+
     @Override
     public void setBlockLight(ChunkSection section, int x, int y, int z, int value) {
         section.getEmittedLightArray().a(x & 15, y & 15, z & 15, value);
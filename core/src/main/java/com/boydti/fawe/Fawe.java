@@ -1,7 +1,10 @@
 package com.boydti.fawe;
 
+import com.boydti.fawe.command.Budget;
 import com.boydti.fawe.command.Cancel;
 import com.boydti.fawe.command.Reload;
+import com.boydti.fawe.command.Scan;
+import com.boydti.fawe.command.Stats;
 import com.boydti.fawe.command.Wea;
 import com.boydti.fawe.command.WorldEditRegion;
 import com.boydti.fawe.config.BBC;
@@ -9,6 +12,7 @@ import com.boydti.fawe.config.Commands;
 import com.boydti.fawe.config.Settings;
 import com.boydti.fawe.object.FawePlayer;
 import com.boydti.fawe.regions.general.plot.PlotSquaredFeature;
+import com.boydti.fawe.util.FaweStats;
 import com.boydti.fawe.util.FaweTimer;
 import com.boydti.fawe.util.MainUtil;
 import com.boydti.fawe.util.MemUtil;
@@ -215,6 +219,9 @@ public class Fawe {
          */
         this.setupInjector();
         this.setupMemoryListener();
+        if (Settings.STATS.ENABLED) {
+            FaweStats.IMP.register();
+        }
     }
 
     /**
@@ -247,6 +254,9 @@ public class Fawe {
         this.IMP.setupCommand("select", new WorldEditRegion());
         this.IMP.setupCommand("fawe", new Reload());
         this.IMP.setupCommand("fcancel", new Cancel());
+        this.IMP.setupCommand("fbudget", new Budget());
+        this.IMP.setupCommand("fstats", new Stats());
+        this.IMP.setupCommand("fscan", new Scan());
     }
 
     public void setupConfigs() {
@@ -1,6 +1,7 @@
 package com.boydti.fawe;
 
 import com.boydti.fawe.object.PseudoRandom;
+import com.boydti.fawe.util.MathMan;
 import com.sk89q.jnbt.ByteArrayTag;
 import com.sk89q.jnbt.ByteTag;
 import com.sk89q.jnbt.CompoundTag;
@@ -16,6 +17,7 @@ import com.sk89q.jnbt.StringTag;
 import com.sk89q.jnbt.Tag;
 import com.sk89q.worldedit.CuboidClipboard;
 import com.sk89q.worldedit.blocks.BaseBlock;
+import com.sk89q.worldedit.blocks.BlockMaterial;
 import com.sk89q.worldedit.world.registry.BundledBlockData;
 import java.awt.Color;
 import java.lang.reflect.Field;
@@ -317,6 +319,33 @@ public class FaweCache {
         }
     }
 
+    private static byte[] CACHE_LIGHT;
+
+    /**
+     * Get the opacity and brightness of a block (see {@link MathMan#pair16(int, int)})<br>
+     *     - Looked up in the bundled block data the first time, then cached<br>
+     *     - Blocks with the same pair can replace each other without changing the lighting
+     * @param id The block id
+     * @return pair16(opacity, brightness)
+     */
+    public static int getOpacityBrightnessPair(int id) {
+        byte[] cache = CACHE_LIGHT;
+        if (cache == null) {
+            cache = new byte[4096];
+            BundledBlockData data = BundledBlockData.getInstance();
+            for (int i = 1; i < cache.length; i++) {
+                BlockMaterial material = data.getMaterialById(i);
+                if (material == null) {
+                    cache[i] = MathMan.pair16(15, 15);
+                } else {
+                    cache[i] = MathMan.pair16(Math.min(15, material.getLightOpacity()), Math.min(15, material.getLightValue()));
+                }
+            }
+            CACHE_LIGHT = cache;
+        }
+        return cache[id] & 0xFF;
+    }
+
     public static boolean hasLight(int id) {
         switch (id) {
             case 39:
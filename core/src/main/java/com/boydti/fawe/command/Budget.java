@@ -0,0 +1,29 @@
+package com.boydti.fawe.command;
+
+import com.boydti.fawe.Fawe;
+import com.boydti.fawe.config.Settings;
+import com.boydti.fawe.object.FaweCommand;
+import com.boydti.fawe.object.FawePlayer;
+import com.boydti.fawe.util.MainUtil;
+import com.boydti.fawe.util.SetQueue;
+import com.boydti.fawe.util.TickBudget;
+
+public class Budget extends FaweCommand {
+
+    public Budget() {
+        super("fawe.budget");
+    }
+
+    @Override
+    public boolean execute(final FawePlayer player, final String... args) {
+        TickBudget budget = SetQueue.IMP.getBudget();
+        if (!Settings.QUEUE.BUDGET.ADAPTIVE) {
+            MainUtil.sendMessage(player, "&7The adaptive budget is disabled (using extra-time-ms)");
+        }
+        MainUtil.sendMessage(player, "&7Placement budget: &c" + budget.getBudget() + "ms&7/tick (last tick used &c" + budget.getLastUsed() + "ms&7)");
+        MainUtil.sendMessage(player, "&7Tick length: &c" + budget.getLastTick() + "ms&7 (average &c" + String.format("%.1f", budget.getAverageTick()) + "ms&7, target &c" + Settings.QUEUE.BUDGET.TARGET_MSPT + "ms&7)");
+        MainUtil.sendMessage(player, "&7TPS: &c" + String.format("%.2f", Fawe.get().getTPS()));
+        MainUtil.sendMessage(player, "&7Last adjustment: &c" + budget.getReason().name().toLowerCase().replace('_', ' ') + "&7 (&c" + budget.getIncreases() + "&7 increases, &c" + budget.getDecreases() + "&7 decreases)");
+        return true;
+    }
+}
@@ -0,0 +1,133 @@
+package com.boydti.fawe.command;
+
+import com.boydti.fawe.FaweCache;
+import com.boydti.fawe.jnbt.anvil.MCAScanner;
+import com.boydti.fawe.jnbt.anvil.filters.ChunkCountFilter;
+import com.boydti.fawe.jnbt.anvil.filters.CountFilter;
+import com.boydti.fawe.object.FaweCommand;
+import com.boydti.fawe.object.FawePlayer;
+import com.boydti.fawe.object.FaweQueue;
+import com.boydti.fawe.util.MainUtil;
+import com.boydti.fawe.util.MathMan;
+import com.boydti.fawe.util.SetQueue;
+import com.sk89q.worldedit.world.registry.BundledBlockData;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Map;
+
+/**
+ * Scan the region files of a world (nothing is loaded on the server)<br>
+ *     - /fscan <world> : The most common blocks<br>
+ *     - /fscan <world> <block,...> : The chunks with the most of those blocks
+ */
+public class Scan extends FaweCommand {
+
+    private static final int SCAN_RESULTS = 10;
+
+    public Scan() {
+        super("fawe.scan");
+    }
+
+    @Override
+    public boolean execute(final FawePlayer player, final String... args) {
+        if (args.length < 1) {
+            MainUtil.sendMessage(player, "&7/fscan <world> [block,...]");
+            return false;
+        }
+        FaweQueue queue = SetQueue.IMP.getNewQueue(args[0], true, false);
+        if (queue.getSaveFolder() == null || !queue.getSaveFolder().exists()) {
+            MainUtil.sendMessage(player, "&7Unknown world: &c" + args[0]);
+            return true;
+        }
+        long start = System.currentTimeMillis();
+        MainUtil.sendMessage(player, "&7Scanning " + args[0] + "...");
+        if (args.length < 2) {
+            final long[] counts = MCAScanner.scan(queue, new CountFilter());
+            ArrayList<Integer> ids = new ArrayList<>();
+            long total = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) {
+                    ids.add(i);
+                    total += counts[i];
+                }
+            }
+            Collections.sort(ids, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer a, Integer b) {
+                    return Long.compare(counts[b], counts[a]);
+                }
+            });
+            MainUtil.sendMessage(player, "&7Scanned &c" + total + "&7 blocks in &c" + (System.currentTimeMillis() - start) + "ms");
+            for (int i = 0; i < Math.min(SCAN_RESULTS, ids.size()); i++) {
+                int combined = ids.get(i);
+                MainUtil.sendMessage(player, "&7 - " + FaweCache.getMaterialName(combined) + ": &c" + counts[combined] + "&7 (" + String.format("%.3f", counts[combined] * 100d / total) + "%)");
+            }
+            return true;
+        }
+        boolean[] matches = new boolean[Character.MAX_VALUE + 1];
+        for (String arg : args[1].split(",")) {
+            if (!parseBlock(arg, matches)) {
+                MainUtil.sendMessage(player, "&7Unknown block: &c" + arg);
+                return true;
+            }
+        }
+        final Map<Long, Integer> chunks = MCAScanner.scan(queue, new ChunkCountFilter(matches));
+        ArrayList<Long> sorted = new ArrayList<>(chunks.keySet());
+        Collections.sort(sorted, new Comparator<Long>() {
+            @Override
+            public int compare(Long a, Long b) {
+                return Integer.compare(chunks.get(b), chunks.get(a));
+            }
+        });
+        long total = 0;
+        for (int count : chunks.values()) {
+            total += count;
+        }
+        MainUtil.sendMessage(player, "&7Found &c" + total + "&7 blocks in &c" + chunks.size() + "&7 chunks (&c" + (System.currentTimeMillis() - start) + "ms&7)");
+        for (int i = 0; i < Math.min(SCAN_RESULTS, sorted.size()); i++) {
+            long pair = sorted.get(i);
+            int cx = MathMan.unpairIntX(pair);
+            int cz = MathMan.unpairIntY(pair);
+            MainUtil.sendMessage(player, "&7 - Chunk " + cx + "," + cz + " (block " + (cx << 4) + "," + (cz << 4) + "): &c" + chunks.get(pair));
+        }
+        return true;
+    }
+
+    /**
+     * Parse a block (id, id:data, name or name:data) into the matching combined ids
+     * @param arg
+     * @param matches
+     * @return false if the block is unknown
+     */
+    private boolean parseBlock(String arg, boolean[] matches) {
+        String[] split = arg.split(":");
+        String name = split[0];
+        int data = -1;
+        if (split.length > 1 && MathMan.isInteger(split[split.length - 1])) {
+            data = Integer.parseInt(split[split.length - 1]);
+            name = arg.substring(0, arg.lastIndexOf(':'));
+        }
+        int id;
+        if (MathMan.isInteger(name)) {
+            id = Integer.parseInt(name);
+        } else {
+            BundledBlockData.BlockEntry entry = BundledBlockData.getInstance().findById(name.contains(":") ? name : "minecraft:" + name);
+            if (entry == null) {
+                return false;
+            }
+            id = entry.legacyId;
+        }
+        if (id < 0 || id > 4095 || data > 15) {
+            return false;
+        }
+        if (data == -1) {
+            for (data = 0; data < 16; data++) {
+                matches[FaweCache.getCombined(id, data)] = true;
+            }
+        } else {
+            matches[FaweCache.getCombined(id, data)] = true;
+        }
+        return true;
+    }
+}
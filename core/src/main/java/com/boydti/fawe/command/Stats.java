@@ -0,0 +1,52 @@
+package com.boydti.fawe.command;
+
+import com.boydti.fawe.config.Settings;
+import com.boydti.fawe.object.FaweCommand;
+import com.boydti.fawe.object.FawePlayer;
+import com.boydti.fawe.object.FaweQueue;
+import com.boydti.fawe.object.QueueStats;
+import com.boydti.fawe.util.FaweStats;
+import com.boydti.fawe.util.Histogram;
+import com.boydti.fawe.util.MainUtil;
+import com.boydti.fawe.util.SetQueue;
+
+public class Stats extends FaweCommand {
+
+    public Stats() {
+        super("fawe.stats");
+    }
+
+    @Override
+    public boolean execute(final FawePlayer player, final String... args) {
+        if (args.length > 0 && args[0].equalsIgnoreCase("reset")) {
+            FaweStats.IMP.reset();
+            MainUtil.sendMessage(player, "&7Reset the statistics");
+            return true;
+        }
+        if (!Settings.STATS.ENABLED) {
+            MainUtil.sendMessage(player, "&7Statistics are disabled (stats.enabled)");
+            return true;
+        }
+        FaweStats stats = FaweStats.IMP;
+        MainUtil.sendMessage(player, "&7Queues: &c" + stats.getActiveQueues() + "&7 active, &c" + stats.getInactiveQueues() + "&7 inactive");
+        MainUtil.sendMessage(player, "&7Placed: &c" + stats.getChunksPlaced() + "&7 chunks, &c" + stats.getBlocksPlaced() + "&7 blocks (last 10s: &c" + String.format("%.1f", stats.getChunksPerSecond()) + "&7 chunks/s, &c" + String.format("%.0f", stats.getBlocksPerSecond()) + "&7 blocks/s)");
+        sendHistogram(player, "Waiting (inactive)", stats.getInactive(), "ms");
+        sendHistogram(player, "Placing (active)", stats.getActive(), "ms");
+        sendHistogram(player, "Set chunk", stats.getSetComponents(), "us");
+        sendHistogram(player, "Relight", stats.getRelight(), "us");
+        sendHistogram(player, "History flush", stats.getHistoryFlush(), "us");
+        sendHistogram(player, "Chunk load wait", stats.getChunkLoad(), "us");
+        for (FaweQueue queue : SetQueue.IMP.getActiveQueues()) {
+            QueueStats queueStats = queue.getStats();
+            MainUtil.sendMessage(player, "&7 - " + queue.getWorldName() + ": &c" + queue.size() + "&7 queued, &c" + queueStats.getChunks() + "&7 placed (&c" + String.format("%.1f", queueStats.getChunksPerSecond()) + "&7 chunks/s, &c" + String.format("%.1f", queueStats.getSetComponents().getMean()) + "us&7 per chunk)");
+        }
+        return true;
+    }
+
+    private void sendHistogram(FawePlayer player, String name, Histogram histogram, String unit) {
+        if (histogram.getCount() == 0) {
+            return;
+        }
+        MainUtil.sendMessage(player, "&7" + name + ": &c" + String.format("%.1f", histogram.getMean()) + unit + "&7 mean, &c" + histogram.getPercentile(50) + unit + "&7 p50, &c" + histogram.getPercentile(99) + unit + "&7 p99, &c" + histogram.getMax() + unit + "&7 max (&c" + histogram.getCount() + "&7)");
+    }
+}
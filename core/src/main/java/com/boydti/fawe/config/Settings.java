@@ -45,6 +45,7 @@ public class Settings extends Config {
     public static final class PATHS {
         public static String HISTORY = "history";
         public static String CLIPBOARD = "clipboard";
+        public static String SPILL = "spill";
     }
 
 
@@ -185,6 +186,130 @@ public class Settings extends Config {
         })
         public static int DISCARD_AFTER_MS = 60000;
 
+        @Comment({
+                "The order chunks from an edit are placed in:",
+                " - 0 = Insertion (the order the edit changed them)",
+                " - 1 = Morton (Z-order curve, keeps nearby chunks together)",
+                " - 2 = Hilbert (like Morton, with better locality)",
+                " - 3 = Nearest (closest to the player first, so visible changes appear first)",
+                "Chunks are reordered in the background, so changes to the order may take a tick to apply"
+        })
+        public static int DISPATCH_ORDER = 0;
+
+        @Comment({
+                "Store the blocks of queued chunks as palettes (1-8 bits per block) instead of 16 bits per block",
+                " - Uses a lot less memory for edits with few block types (e.g. //set, //replace)",
+                " - Sections are unpacked when placed, so this costs some extra CPU"
+        })
+        public static boolean PALETTE_SECTIONS = false;
+
+        @Comment({
+                "The maximum number of chunks an edit can have queued before the thread making the edit",
+                "waits for some of them to be placed (0 = unlimited)",
+                " - Keeps memory use flat for very large edits (e.g. generation)",
+                " - Edits on the main thread never wait"
+        })
+        public static int MAX_PENDING_CHUNKS = 0;
+
+        public static class BUDGET {
+            @Comment({
+                    "Adjust the time spent placing blocks each tick based on how long ticks are taking:",
+                    " - The time is increased while ticks finish within target-mspt",
+                    " - The time is halved as soon as ticks run over (e.g. another plugin lags)",
+                    " - See the current state with /fbudget",
+                    "If disabled, extra-time-ms is used instead."
+            })
+            public static boolean ADAPTIVE = true;
+            @Comment("The tick length (ms) to aim for (50 = 20 TPS)")
+            public static int TARGET_MSPT = 50;
+            @Comment("The minimum time (ms) to spend placing blocks each tick")
+            public static int MIN_MS = 5;
+            @Comment("The maximum time (ms) to spend placing blocks each tick")
+            public static int MAX_MS = 50;
+            @Comment("How much the time (ms) is increased by each tick when there is spare capacity")
+            public static int INCREASE_MS = 1;
+        }
+
+        public static class PRIORITY {
+            @Comment({
+                    "Share each tick's placement time between all the active edits, rather than",
+                    "finishing one edit before starting the next."
+            })
+            public static boolean FAIR_SHARE = true;
+            @Comment({
+                    "Edits get a share of the placement time relative to their priority (1 by default).",
+                    "Give a player a higher priority with the fawe.priority.<n> permission (up to this value)."
+            })
+            public static int MAX = 10;
+            @Comment({
+                    "Edits have double priority for this long (ms) after being queued, so small",
+                    "edits finish quickly even when a large edit is running."
+            })
+            public static int NEW_EDIT_MS = 2000;
+        }
+
+        public static class POOL {
+            @Comment({
+                    "Reuse the chunk objects and block arrays of an edit once they have been placed",
+                    "(reduces garbage collection during large edits, but every placement thread shares the same pool)"
+            })
+            public static boolean ENABLED = false;
+            @Comment("The maximum number of chunk objects kept for reuse (per implementation)")
+            public static int CHUNKS = 512;
+            @Comment("The maximum number of 16x16x16 block arrays kept for reuse (8KB each)")
+            public static int SECTIONS = 2048;
+        }
+
+        public static class SPILL {
+            @Comment({
+                    "When memory is low, move the blocks of queued chunks which won't be placed for a while",
+                    "to a scratch file (in the spill directory) instead of cancelling the edit.",
+                    "They are read back when placed, so large edits slow down rather than fail."
+            })
+            public static boolean ENABLED = true;
+            @Comment("Start spilling when this much of the heap (%) is still in use after garbage collection")
+            public static int MEMORY_PERCENT = 80;
+            @Comment({
+                    "The number of chunks kept in memory at each end of an edit's queue",
+                    "(the next to be placed, and the most recently changed)"
+            })
+            public static int KEEP_CHUNKS = 128;
+        }
+
+        public static class RESEND {
+            @Comment({
+                    "Send changed chunks to players once per tick, so a chunk changed by several",
+                    "edits (or several times by one edit) in the same tick is only sent once"
+            })
+            public static boolean BATCH = true;
+            @Comment({
+                    "Chunks with at most this many changed blocks are sent as block changes instead",
+                    "of the whole chunk (0 = always send the whole chunk)",
+                    " - Chunks with changed biomes or tile entities are always sent whole"
+            })
+            public static int MAX_BLOCK_CHANGES = 64;
+            @Comment({
+                    "The maximum number of whole chunks sent to each player per tick (0 = unlimited)",
+                    " - Chunks closest to a player are sent first",
+                    " - A chunk changed again before it is sent is only sent once",
+                    " - Stops large edits from saturating a player's connection (and timing them out)"
+            })
+            public static int CHUNKS_PER_TICK = 16;
+        }
+
+        public static class PRELOAD {
+            @Comment({
+                    "Chunks an edit needs to read (e.g. //copy, //count) are loaded on the main thread in",
+                    "batches. This is the time (ms) per tick that can be spent loading them."
+            })
+            public static int TIME_MS = 10;
+            @Comment({
+                    "The maximum number of chunks to load before the edit has read them",
+                    "(chunks the edit is waiting on are always loaded)."
+            })
+            public static int MAX_AHEAD = 512;
+        }
+
         public static class PROGRESS {
             @Comment("Display constant titles about the progress of a user's edit")
             public static boolean DISPLAY = false;
@@ -243,6 +368,23 @@ public class Settings extends Config {
                 " - 2 = All (Slowly relight every blocks)"
         })
         public static int MODE = 1;
+        @Comment({
+                "Relight large edits on multiple threads (queue.parallel-threads):",
+                " - The chunks are split into partitions of 16x16 chunks, which are relit at the same time",
+                " - Light crossing the edges of partitions is added afterwards"
+        })
+        public static boolean PARALLEL = true;
+    }
+
+    public static class STATS {
+        @Comment({
+                "Record where edit time goes (see /fstats):",
+                " - Time edits spend waiting and placing, chunks and blocks per second",
+                " - Time spent placing each chunk, relighting, flushing history and waiting for chunks to load"
+        })
+        public static boolean ENABLED = true;
+        @Comment("Also make the statistics available through JMX (com.boydti.fawe:type=Stats)")
+        public static boolean JMX = true;
     }
 
     public static void save(File file) {
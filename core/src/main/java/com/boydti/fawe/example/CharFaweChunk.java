@@ -1,13 +1,18 @@
 package com.boydti.fawe.example;
 
 import com.boydti.fawe.FaweCache;
+import com.boydti.fawe.config.Settings;
 import com.boydti.fawe.object.BytePair;
 import com.boydti.fawe.object.FaweChunk;
 import com.boydti.fawe.object.FaweQueue;
+import com.boydti.fawe.object.collection.ObjectPool;
+import com.boydti.fawe.object.collection.PaletteSection;
+import com.boydti.fawe.object.io.MappedSpillFile;
 import com.boydti.fawe.util.MainUtil;
 import com.boydti.fawe.util.MathMan;
 import com.sk89q.jnbt.CompoundTag;
 import com.sk89q.worldedit.world.biome.BaseBiome;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -18,14 +23,47 @@ import java.util.UUID;
 public abstract class CharFaweChunk<T> extends FaweChunk<T> {
 
     public char[][] ids;
+    /**
+     * Sections which are stored as palettes (queue.palette-sections) until they are needed as a char[]
+     */
+    private PaletteSection[] palettes;
     public short[] count;
     public short[] air;
     public short[] relight;
     public int[][] biomes;
     private int bitMask = -1;
+    private boolean sharedArrays;
+    /**
+     * Sections whose array is now used by the world (see {@link #adoptIdArray(int)}), so must not be recycled
+     */
+    private int adoptedSections;
+    private volatile MappedSpillFile spillFile;
+    private int[] spillBlocks;
 
     public T chunk;
 
+    private static final ObjectPool<char[]> SECTION_POOL = new ObjectPool<>(Settings.QUEUE.POOL.SECTIONS);
+
+    /**
+     * Get an empty (zeroed) section array, reusing a recycled one if possible
+     * @return char[4096]
+     */
+    public static char[] newSection() {
+        char[] section = SECTION_POOL.poll();
+        return section != null ? section : new char[4096];
+    }
+
+    /**
+     * Return a section array to be reused
+     * @param section
+     */
+    public static void recycleSection(char[] section) {
+        if (Settings.QUEUE.POOL.ENABLED && section.length == 4096) {
+            Arrays.fill(section, (char) 0);
+            SECTION_POOL.offer(section);
+        }
+    }
+
     /**
      * A FaweSections object represents a chunk and the blocks that you wish to change in it.
      *
@@ -57,6 +95,122 @@ public abstract class CharFaweChunk<T> extends FaweChunk<T> {
         this.chunk = null;
     }
 
+    /**
+     * Clear this chunk so that it can be reused<br>
+     *     - The section arrays are recycled (unless shared with a shallow copy)
+     */
+    @Override
+    public void reset() {
+        super.reset();
+        discardSpill();
+        for (int i = 0; i < ids.length; i++) {
+            char[] section = ids[i];
+            if (section != null) {
+                if (!sharedArrays && (adoptedSections & (1 << i)) == 0) {
+                    recycleSection(section);
+                }
+                ids[i] = null;
+            }
+        }
+        if (ids.length != 16 || sharedArrays) {
+            ids = new char[16][];
+        }
+        palettes = null;
+        if (sharedArrays) {
+            count = new short[16];
+            air = new short[16];
+            relight = new short[16];
+            sharedArrays = false;
+        } else {
+            Arrays.fill(count, (short) 0);
+            Arrays.fill(air, (short) 0);
+            Arrays.fill(relight, (short) 0);
+        }
+        biomes = null;
+        tiles = null;
+        entities = null;
+        entityRemoves = null;
+        bitMask = -1;
+        adoptedSections = 0;
+        chunk = null;
+    }
+
+    /**
+     * Move the block arrays to a spill file, to free up heap<br>
+     *     - They are read back the next time they are accessed
+     * @param file
+     * @return false if there was nothing to spill
+     */
+    public synchronized boolean spill(MappedSpillFile file) {
+        if (spillFile != null || sharedArrays) {
+            return false;
+        }
+        boolean any = false;
+        for (char[] section : ids) {
+            if (section != null) {
+                any = true;
+                break;
+            }
+        }
+        if (!any) {
+            return false;
+        }
+        try {
+            spillBlocks = file.write(ids);
+        } catch (IOException e) {
+            MainUtil.handleError(e);
+            return false;
+        }
+        Arrays.fill(ids, null);
+        spillFile = file;
+        return true;
+    }
+
+    /**
+     * If the block arrays are in a spill file
+     * @return
+     */
+    public boolean isSpilled() {
+        return spillFile != null;
+    }
+
+    /**
+     * Read the block arrays back from the spill file (if spilled)
+     */
+    public void restore() {
+        if (spillFile != null) {
+            restoreSync();
+        }
+    }
+
+    /**
+     * Release the block arrays in the spill file without reading them back (if spilled)
+     */
+    private synchronized void discardSpill() {
+        MappedSpillFile file = spillFile;
+        if (file == null) {
+            return;
+        }
+        spillFile = null;
+        file.release(spillBlocks);
+        spillBlocks = null;
+    }
+
+    private synchronized void restoreSync() {
+        MappedSpillFile file = spillFile;
+        if (file == null) {
+            return;
+        }
+        for (int i = 0; i < ids.length; i++) {
+            if (spillBlocks[i] != -1) {
+                ids[i] = newSection();
+            }
+        }
+        spillFile = null;
+        file.read(spillBlocks, ids);
+        spillBlocks = null;
+    }
+
     /**
      * Get the number of block changes in a specified section
      * @param i
@@ -107,9 +261,10 @@ public abstract class CharFaweChunk<T> extends FaweChunk<T> {
     @Override
     public int getBitMask() {
         if (bitMask == -1) {
+            restore();
             this.bitMask = 0;
             for (int section = 0; section < ids.length; section++) {
-                if (ids[section] != null) {
+                if (ids[section] != null || (palettes != null && palettes[section] != null)) {
                     bitMask += 1 << section;
                 }
             }
@@ -122,31 +277,84 @@ public abstract class CharFaweChunk<T> extends FaweChunk<T> {
     }
 
     /**
-     * Get the raw data for a section
+     * Get the raw data for a section<br>
+     *     - A palette section is unpacked
      * @param i
      * @return
      */
     public char[] getIdArray(final int i) {
-        return this.ids[i];
+        restore();
+        char[] array = this.ids[i];
+        if (array == null && palettes != null) {
+            return unpack(i);
+        }
+        return array;
+    }
+
+    /**
+     * Get the array of a section, which the world will use as its block storage<br>
+     *     - The array won't be recycled when this chunk is reset
+     * @param i
+     * @return
+     */
+    public char[] adoptIdArray(final int i) {
+        char[] array = getIdArray(i);
+        if (array != null) {
+            adoptedSections |= 1 << i;
+        }
+        return array;
     }
 
     public char[][] getCombinedIdArrays() {
+        restore();
+        if (palettes != null) {
+            unpackAll();
+        }
         return this.ids;
     }
 
+    private synchronized char[] unpack(int i) {
+        if (palettes == null || palettes[i] == null) {
+            return ids[i];
+        }
+        char[] array = newSection();
+        palettes[i].toArray(array);
+        ids[i] = array;
+        palettes[i] = null;
+        return array;
+    }
+
+    private synchronized void unpackAll() {
+        if (palettes != null) {
+            for (int i = 0; i < palettes.length; i++) {
+                unpack(i);
+            }
+            palettes = null;
+        }
+    }
+
     public int[][] getBiomeArray() {
         return this.biomes;
     }
 
     public int getCombinedId(int x, int y, int z) {
+        restore();
         short i = FaweCache.CACHE_I[y][x][z];
-        char[] array = getIdArray(i);
+        char[] array = this.ids[i];
         if (array == null) {
-            return 0;
+            // Read a palette section without unpacking it
+            PaletteSection[] sections = palettes;
+            PaletteSection section = sections != null ? sections[i] : null;
+            return section != null ? section.get(FaweCache.CACHE_J[y][x][z]) : 0;
         }
         return array[FaweCache.CACHE_J[y][x][z]];
     }
 
+    @Override
+    public int getBlockCombinedId(int x, int y, int z) {
+        return getCombinedId(x, y, z);
+    }
+
     public HashMap<BytePair, CompoundTag> tiles;
 
     @Override
@@ -212,18 +420,12 @@ public abstract class CharFaweChunk<T> extends FaweChunk<T> {
     public void setBlock(int x, int y, int z, int id) {
         final int i = FaweCache.CACHE_I[y][x][z];
         final int j = FaweCache.CACHE_J[y][x][z];
-        char[] vs = this.ids[i];
-        if (vs == null) {
-            vs = this.ids[i] = new char[4096];
-            this.count[i]++;
-        } else if (vs[j] == 0) {
-            this.count[i]++;
-        }
+        char value;
         switch (id) {
             case 0:
                 this.air[i]++;
-                vs[j] = (char) 1;
-                return;
+                value = (char) 1;
+                break;
             case 11:
             case 39:
             case 40:
@@ -242,27 +444,22 @@ public abstract class CharFaweChunk<T> extends FaweChunk<T> {
             case 10:
                 this.relight[i]++;
             default:
-                vs[j] = (char) (id << 4);
-                return;
+                value = (char) (id << 4);
+                break;
         }
+        setCombinedId(i, j, value);
     }
 
     @Override
     public void setBlock(final int x, final int y, final int z, final int id, int data) {
         final int i = FaweCache.CACHE_I[y][x][z];
         final int j = FaweCache.CACHE_J[y][x][z];
-        char[] vs = this.ids[i];
-        if (vs == null) {
-            vs = this.ids[i] = new char[4096];
-            this.count[i]++;
-        } else if (vs[j] == 0) {
-            this.count[i]++;
-        }
+        char value;
         switch (id) {
             case 0:
                 this.air[i]++;
-                vs[j] = (char) 1;
-                return;
+                value = (char) 1;
+                break;
             case 11:
             case 39:
             case 40:
@@ -327,8 +524,8 @@ public abstract class CharFaweChunk<T> extends FaweChunk<T> {
             case 190:
             case 191:
             case 192:
-                vs[j] = (char) (id << 4);
-                return;
+                value = (char) (id << 4);
+                break;
             case 130:
             case 76:
             case 62:
@@ -341,9 +538,58 @@ public abstract class CharFaweChunk<T> extends FaweChunk<T> {
             case 65:
             case 68: // removed
             default:
-                vs[j] = (char) ((id << 4) + data);
-                return;
+                value = (char) ((id << 4) + data);
+                break;
+        }
+        setCombinedId(i, j, value);
+    }
+
+    /**
+     * Set the raw value at an index in a section, and update the change count
+     * @param i The section
+     * @param j The index in the section
+     * @param value The combined id (or 1 for air)
+     */
+    private void setCombinedId(int i, int j, char value) {
+        restore();
+        char[] vs = this.ids[i];
+        if (vs == null) {
+            if (Settings.QUEUE.PALETTE_SECTIONS || palettes != null) {
+                if (setPalette(i, j, value)) {
+                    return;
+                }
+                vs = this.ids[i];
+            } else {
+                vs = this.ids[i] = newSection();
+            }
+        }
+        if (vs[j] == 0) {
+            this.count[i]++;
         }
+        vs[j] = value;
+    }
+
+    /**
+     * @return false if the section had to be unpacked (too many distinct values)
+     */
+    private boolean setPalette(int i, int j, char value) {
+        if (palettes == null) {
+            palettes = new PaletteSection[16];
+        }
+        PaletteSection section = palettes[i];
+        if (section == null) {
+            section = palettes[i] = new PaletteSection();
+        }
+        char previous = section.get(j);
+        if (section.set(j, value)) {
+            if (previous == 0 && ++this.count[i] == 4096) {
+                // Every block is set, so the palette no longer needs 0 (e.g. a full //set section becomes a single value)
+                section.trim();
+            }
+            return true;
+        }
+        unpack(i);
+        return false;
     }
 
     @Override
@@ -360,9 +606,14 @@ public abstract class CharFaweChunk<T> extends FaweChunk<T> {
 
     @Override
     public CharFaweChunk<T> copy(boolean shallow) {
+        restore();
         CharFaweChunk<T> copy = (CharFaweChunk<T>) getParent().getFaweChunk(getX(), getZ());
         if (shallow) {
+            // The arrays are shared, so they can't be recycled with either chunk
+            this.sharedArrays = true;
+            copy.sharedArrays = true;
             copy.ids = ids;
+            copy.palettes = palettes;
             copy.air = air;
             copy.biomes = biomes;
             copy.chunk = chunk;
@@ -370,6 +621,14 @@ public abstract class CharFaweChunk<T> extends FaweChunk<T> {
             copy.relight = relight;
         } else {
             copy.ids = (char[][]) MainUtil.copyNd(ids);
+            if (palettes != null) {
+                copy.palettes = new PaletteSection[palettes.length];
+                for (int i = 0; i < palettes.length; i++) {
+                    if (palettes[i] != null) {
+                        copy.palettes[i] = palettes[i].copy();
+                    }
+                }
+            }
             copy.air = air.clone();
             copy.biomes = biomes.clone();
             copy.chunk = chunk;
@@ -0,0 +1,341 @@
+package com.boydti.fawe.example;
+
+import com.boydti.fawe.Fawe;
+import com.boydti.fawe.config.Settings;
+import com.boydti.fawe.util.MainUtil;
+import com.boydti.fawe.util.MathMan;
+import com.boydti.fawe.util.TaskManager;
+import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.Vector2D;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.regions.Region;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads the chunks a queue needs to read on the main thread, in batches<br>
+ *     - Chunks can be requested ahead of time (prefetch) and are loaded in the order requested<br>
+ *     - The chunks of a region are requested as the edit reads them, a window of queue.preload.max-ahead chunks at a time<br>
+ *     - A chunk in the window which the edit has read past is assumed to have been skipped, and is released<br>
+ *     - A reader waiting on a chunk moves it to the front<br>
+ *     - Each tick, up to queue.preload.time-ms is spent loading chunks<br>
+ *     - At most queue.preload.max-ahead chunks are loaded before they have been read
+ */
+public class ChunkPrefetcher {
+
+    private static final int PENDING = 0;
+    private static final int LOADED = 1;
+    private static final int READ = 2;
+
+    private final MappedFaweQueue queue;
+    private final ConcurrentHashMap<Long, LoadTask> tasks = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedDeque<LoadTask> pending = new ConcurrentLinkedDeque<>();
+    private final ConcurrentLinkedDeque<LoadTask> urgent = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger ahead = new AtomicInteger();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    /**
+     * The chunks of the region being read which have been requested (in the order requested)
+     */
+    private final ArrayDeque<LoadTask> window = new ArrayDeque<>();
+    /**
+     * The chunks of the region being read which have not been requested yet
+     */
+    private Iterator<Vector2D> remaining;
+    private long sequence;
+
+    public ChunkPrefetcher(MappedFaweQueue queue) {
+        this.queue = queue;
+    }
+
+    private final class LoadTask extends FutureTask<Boolean> {
+        private final AtomicInteger state;
+        /**
+         * The position in the window, or -1 if it wasn't requested as part of a region
+         */
+        private long index = -1;
+        private final long pair;
+
+        private LoadTask(long pair, final int cx, final int cz, final AtomicInteger state) {
+            super(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    if (state.get() == READ) {
+                        // Nothing needs it anymore
+                        return queue.isChunkLoaded(cx, cz);
+                    }
+                    boolean loaded = queue.isChunkLoaded(cx, cz) || queue.loadChunk(queue.getWorld(), cx, cz, true);
+                    if (loaded && state.compareAndSet(PENDING, LOADED)) {
+                        ahead.incrementAndGet();
+                    }
+                    return loaded;
+                }
+            });
+            this.state = state;
+            this.pair = pair;
+        }
+    }
+
+    /**
+     * The chunks in a rectangle (created as they are iterated)
+     */
+    private static final class ChunkIterator implements Iterator<Vector2D> {
+        private final int minZ;
+        private final int maxX;
+        private final int maxZ;
+        private int x;
+        private int z;
+
+        private ChunkIterator(int minX, int minZ, int maxX, int maxZ) {
+            this.minZ = minZ;
+            this.maxX = maxX;
+            this.maxZ = maxZ;
+            this.x = minX;
+            this.z = minZ;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return x <= maxX;
+        }
+
+        @Override
+        public Vector2D next() {
+            Vector2D chunk = new Vector2D(x, z);
+            if (++z > maxZ) {
+                z = minZ;
+                x++;
+            }
+            return chunk;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * If there are chunks requested which have not been read yet
+     * @return
+     */
+    public boolean isActive() {
+        return !tasks.isEmpty();
+    }
+
+    /**
+     * Request the chunks of a region be loaded, as they are read (replacing any region requested before)
+     * @param region
+     */
+    public void prefetch(Region region) {
+        Iterator<Vector2D> chunks;
+        if (region instanceof CuboidRegion) {
+            // Don't create the set of every chunk
+            Vector min = region.getMinimumPoint();
+            Vector max = region.getMaximumPoint();
+            chunks = new ChunkIterator(min.getBlockX() >> 4, min.getBlockZ() >> 4, max.getBlockX() >> 4, max.getBlockZ() >> 4);
+        } else {
+            chunks = region.getChunks().iterator();
+        }
+        synchronized (window) {
+            remaining = chunks;
+            fill();
+        }
+    }
+
+    /**
+     * Request a chunk be loaded (behind any chunks already requested)
+     * @param cx
+     * @param cz
+     * @return A future for the chunk being loaded
+     */
+    public Future<Boolean> prefetch(int cx, int cz) {
+        return getTask(cx, cz, false);
+    }
+
+    /**
+     * Wait for a chunk to load (moving it to the front of the load queue)
+     * @param cx
+     * @param cz
+     * @param timeout in milliseconds
+     * @return false if the chunk didn't load in time
+     */
+    public boolean await(int cx, int cz, int timeout) {
+        LoadTask task = getTask(cx, cz, true);
+        if (task.isDone() && !queue.isChunkLoaded(cx, cz)) {
+            // It was loaded, then unloaded before it was read
+            discard(MathMan.pairInt(cx, cz), task);
+            task = getTask(cx, cz, true);
+        }
+        try {
+            return task.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | CancellationException ignore) {
+            return queue.isChunkLoaded(cx, cz);
+        } catch (InterruptedException | ExecutionException e) {
+            MainUtil.handleError(e);
+            return false;
+        }
+    }
+
+    /**
+     * Mark a chunk as read (it no longer counts towards the chunks loaded ahead of time)
+     * @param cx
+     * @param cz
+     */
+    public void read(int cx, int cz) {
+        long pair = MathMan.pairInt(cx, cz);
+        LoadTask task = tasks.get(pair);
+        if (task != null) {
+            discard(pair, task);
+            if (task.index != -1) {
+                advance(task.index);
+            }
+        }
+    }
+
+    /**
+     * Move the window past a chunk which has been read (releasing any chunks before it which were skipped)
+     * @param index
+     */
+    private void advance(long index) {
+        synchronized (window) {
+            LoadTask first;
+            while ((first = window.peek()) != null && first.index <= index) {
+                window.poll();
+                discard(first.pair, first);
+            }
+            fill();
+        }
+    }
+
+    /**
+     * Request the next chunks of the region, until the window is full
+     */
+    private void fill() {
+        if (remaining == null) {
+            return;
+        }
+        boolean added = false;
+        while (window.size() < Settings.QUEUE.PRELOAD.MAX_AHEAD && remaining.hasNext()) {
+            Vector2D chunk = remaining.next();
+            LoadTask task = request(chunk.getBlockX(), chunk.getBlockZ(), false);
+            if (task.index == -1 && !task.isDone()) {
+                task.index = sequence++;
+                window.add(task);
+                added = true;
+            }
+        }
+        if (!remaining.hasNext()) {
+            remaining = null;
+        }
+        if (added) {
+            schedule();
+        }
+    }
+
+    /**
+     * Remove a request (if it's still the current one for the chunk)
+     * @param pair
+     * @param task
+     */
+    private void discard(long pair, LoadTask task) {
+        if (tasks.remove(pair, task) && task.state.getAndSet(READ) == LOADED) {
+            ahead.decrementAndGet();
+            if (!pending.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+
+    /**
+     * Discard all requests (e.g. the edit has finished)
+     */
+    public void clear() {
+        synchronized (window) {
+            window.clear();
+            remaining = null;
+        }
+        for (LoadTask task : tasks.values()) {
+            task.state.set(READ);
+        }
+        tasks.clear();
+        pending.clear();
+        urgent.clear();
+        ahead.set(0);
+    }
+
+    private LoadTask getTask(int cx, int cz, boolean now) {
+        LoadTask task = request(cx, cz, now);
+        schedule();
+        return task;
+    }
+
+    private LoadTask request(int cx, int cz, boolean now) {
+        long pair = MathMan.pairInt(cx, cz);
+        LoadTask task = tasks.get(pair);
+        if (task == null) {
+            task = new LoadTask(pair, cx, cz, new AtomicInteger(PENDING));
+            LoadTask existing = tasks.putIfAbsent(pair, task);
+            if (existing != null) {
+                task = existing;
+            } else if (!now) {
+                pending.add(task);
+            }
+        }
+        if (now && !task.isDone()) {
+            urgent.add(task);
+        }
+        return task;
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            TaskManager.IMP.task(loader);
+        }
+    }
+
+    private final Runnable loader = new Runnable() {
+        @Override
+        public void run() {
+            long start = System.currentTimeMillis();
+            try {
+                while (true) {
+                    LoadTask task = urgent.poll();
+                    if (task == null) {
+                        // Only load ahead of time while the server has time to spare
+                        if (ahead.get() >= Settings.QUEUE.PRELOAD.MAX_AHEAD || !Fawe.get().getTimer().isAbove(18.5)) {
+                            break;
+                        }
+                        task = pending.poll();
+                        if (task == null) {
+                            break;
+                        }
+                    }
+                    if (!task.isDone()) {
+                        task.run();
+                    }
+                    if (System.currentTimeMillis() - start >= Settings.QUEUE.PRELOAD.TIME_MS) {
+                        break;
+                    }
+                }
+            } catch (Throwable e) {
+                MainUtil.handleError(e);
+            } finally {
+                scheduled.set(false);
+            }
+            if (!urgent.isEmpty() || (!pending.isEmpty() && ahead.get() < Settings.QUEUE.PRELOAD.MAX_AHEAD)) {
+                schedule();
+            }
+        }
+    };
+}
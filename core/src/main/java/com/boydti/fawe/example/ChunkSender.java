@@ -0,0 +1,287 @@
+package com.boydti.fawe.example;
+
+import com.boydti.fawe.FaweCache;
+import com.boydti.fawe.config.Settings;
+import com.boydti.fawe.object.FaweChunk;
+import com.boydti.fawe.util.MainUtil;
+import com.boydti.fawe.util.MathMan;
+import com.boydti.fawe.util.TaskManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+
+/**
+ * Sends changed chunks to players once per tick<br>
+ *     - A chunk changed by several queues (for the same world) in the same tick is sent once<br>
+ *     - A chunk with few changed blocks is sent as block changes rather than the whole chunk<br>
+ *     - What to send is copied when the chunk is added (queued chunks are reused once placed)<br>
+ *     - Chunks are sent nearest to a player first, with a limit per player per tick
+ */
+public class ChunkSender {
+
+    public static final ChunkSender IMP = new ChunkSender();
+
+    private final HashMap<String, LinkedHashMap<Long, PendingChunk>> worlds = new HashMap<>();
+    private boolean scheduled;
+
+    private static final class PendingChunk {
+        private final int x;
+        private final int z;
+        private NMSMappedFaweQueue queue;
+        private int mask;
+        private boolean full;
+        private short[] positions;
+        private int size;
+        private int distance;
+
+        private PendingChunk(int x, int z) {
+            this.x = x;
+            this.z = z;
+        }
+
+        private void add(int max, CharFaweChunk fc) {
+            mask |= fc.getBitMask();
+            if (full) {
+                return;
+            }
+            if (max <= 0 || fc.biomes != null || !fc.getTiles().isEmpty() || size + fc.getTotalCount() > max) {
+                setFull();
+                return;
+            }
+            int changed = 0;
+            for (int i = 0; i < 16; i++) {
+                if (fc.getCount(i) == 0) {
+                    continue;
+                }
+                char[] ids = fc.getIdArray(i);
+                if (ids == null) {
+                    continue;
+                }
+                byte[] xs = FaweCache.CACHE_X[i];
+                short[] ys = FaweCache.CACHE_Y[i];
+                byte[] zs = FaweCache.CACHE_Z[i];
+                for (int j = 0; j < ids.length; j++) {
+                    if (ids[j] != 0) {
+                        if (size == max) {
+                            setFull();
+                            return;
+                        }
+                        if (positions == null) {
+                            positions = new short[max];
+                        }
+                        positions[size++] = (short) ((xs[j] << 12) | (zs[j] << 8) | ys[j]);
+                        changed++;
+                    }
+                }
+            }
+            if (changed == 0) {
+                // Nothing was set (e.g. a chunk sent after relighting), so the whole chunk needs to be sent
+                setFull();
+            }
+        }
+
+        private void merge(PendingChunk other) {
+            mask |= other.mask;
+            if (full) {
+                return;
+            }
+            if (other.full) {
+                setFull();
+                return;
+            }
+            if (positions == null) {
+                positions = new short[other.positions.length];
+            }
+            if (size + other.size > positions.length) {
+                setFull();
+                return;
+            }
+            System.arraycopy(other.positions, 0, positions, size, other.size);
+            size += other.size;
+        }
+
+        private void setFull() {
+            full = true;
+            positions = null;
+            size = 0;
+        }
+    }
+
+    /**
+     * Queue a chunk to be sent to the players who can see it
+     * @param queue
+     * @param fc
+     */
+    public void add(NMSMappedFaweQueue queue, FaweChunk fc) {
+        int max = Settings.QUEUE.RESEND.MAX_BLOCK_CHANGES;
+        synchronized (this) {
+            LinkedHashMap<Long, PendingChunk> chunks = getChunks(queue.getWorldName());
+            long pair = MathMan.pairInt(fc.getX(), fc.getZ());
+            PendingChunk pending = chunks.get(pair);
+            if (pending == null) {
+                pending = new PendingChunk(fc.getX(), fc.getZ());
+                chunks.put(pair, pending);
+            }
+            pending.queue = queue;
+            if (fc instanceof CharFaweChunk) {
+                pending.add(max, (CharFaweChunk) fc);
+            } else {
+                pending.mask |= fc.getBitMask();
+                pending.setFull();
+            }
+            if (!Settings.QUEUE.RESEND.BATCH || scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+        TaskManager.IMP.task(flushTask);
+    }
+
+    /**
+     * Send the queued chunks (must be called from the main thread)<br>
+     *     - Chunks over a player's limit for this tick are kept for the next tick
+     */
+    public void flush() {
+        ArrayList<LinkedHashMap<Long, PendingChunk>> toSend;
+        synchronized (this) {
+            scheduled = false;
+            if (worlds.isEmpty()) {
+                return;
+            }
+            toSend = new ArrayList<>(worlds.values());
+            worlds.clear();
+        }
+        ArrayList<PendingChunk> deferred = new ArrayList<>();
+        for (LinkedHashMap<Long, PendingChunk> chunks : toSend) {
+            send(chunks.values(), deferred);
+        }
+        if (deferred.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            for (PendingChunk pending : deferred) {
+                LinkedHashMap<Long, PendingChunk> chunks = getChunks(pending.queue.getWorldName());
+                long pair = MathMan.pairInt(pending.x, pending.z);
+                PendingChunk newer = chunks.get(pair);
+                if (newer == null) {
+                    chunks.put(pair, pending);
+                } else {
+                    // Changed again while waiting, so it's still only sent once
+                    newer.merge(pending);
+                }
+            }
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+        TaskManager.IMP.task(flushTask);
+    }
+
+    private void send(Collection<PendingChunk> chunks, ArrayList<PendingChunk> deferred) {
+        if (chunks.isEmpty()) {
+            return;
+        }
+        int limit = Settings.QUEUE.RESEND.CHUNKS_PER_TICK;
+        NMSMappedFaweQueue queue = chunks.iterator().next().queue;
+        long[] players = limit > 0 ? queue.getPlayerChunks() : null;
+        if (players == null || players.length == 0) {
+            for (PendingChunk pending : chunks) {
+                send(pending);
+            }
+            return;
+        }
+        int view = queue.getViewDistance();
+        int[] px = new int[players.length];
+        int[] pz = new int[players.length];
+        int[] budget = new int[players.length];
+        for (int i = 0; i < players.length; i++) {
+            px[i] = MathMan.unpairIntX(players[i]);
+            pz[i] = MathMan.unpairIntY(players[i]);
+            budget[i] = limit;
+        }
+        PendingChunk[] sorted = chunks.toArray(new PendingChunk[chunks.size()]);
+        for (PendingChunk pending : sorted) {
+            int distance = Integer.MAX_VALUE;
+            for (int i = 0; i < players.length; i++) {
+                distance = Math.min(distance, Math.max(Math.abs(pending.x - px[i]), Math.abs(pending.z - pz[i])));
+            }
+            pending.distance = distance;
+        }
+        Arrays.sort(sorted, NEAREST);
+        for (PendingChunk pending : sorted) {
+            if (!pending.full && sendBlockChanges(pending)) {
+                // Block changes are small, so they aren't limited
+                continue;
+            }
+            if (pending.distance <= view) {
+                boolean allowed = true;
+                for (int i = 0; i < players.length; i++) {
+                    if (budget[i] <= 0 && Math.max(Math.abs(pending.x - px[i]), Math.abs(pending.z - pz[i])) <= view) {
+                        allowed = false;
+                        break;
+                    }
+                }
+                if (!allowed) {
+                    deferred.add(pending);
+                    continue;
+                }
+                for (int i = 0; i < players.length; i++) {
+                    if (Math.max(Math.abs(pending.x - px[i]), Math.abs(pending.z - pz[i])) <= view) {
+                        budget[i]--;
+                    }
+                }
+            }
+            refreshChunk(pending);
+        }
+    }
+
+    private void send(PendingChunk pending) {
+        if (pending.full || !sendBlockChanges(pending)) {
+            refreshChunk(pending);
+        }
+    }
+
+    private boolean sendBlockChanges(PendingChunk pending) {
+        try {
+            return pending.queue.sendBlockChanges(pending.x, pending.z, pending.positions, pending.size);
+        } catch (Throwable e) {
+            MainUtil.handleError(e);
+            return false;
+        }
+    }
+
+    private void refreshChunk(PendingChunk pending) {
+        try {
+            pending.queue.refreshChunk(pending.x, pending.z, pending.mask);
+        } catch (Throwable e) {
+            MainUtil.handleError(e);
+        }
+    }
+
+    private LinkedHashMap<Long, PendingChunk> getChunks(String world) {
+        LinkedHashMap<Long, PendingChunk> chunks = worlds.get(world);
+        if (chunks == null) {
+            chunks = new LinkedHashMap<>();
+            worlds.put(world, chunks);
+        }
+        return chunks;
+    }
+
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    private static final Comparator<PendingChunk> NEAREST = new Comparator<PendingChunk>() {
+        @Override
+        public int compare(PendingChunk a, PendingChunk b) {
+            return Integer.compare(a.distance, b.distance);
+        }
+    };
+}
@@ -4,25 +4,38 @@ import com.boydti.fawe.Fawe;
 import com.boydti.fawe.FaweCache;
 import com.boydti.fawe.config.Settings;
 import com.boydti.fawe.object.FaweChunk;
+import com.boydti.fawe.object.FaweLocation;
+import com.boydti.fawe.object.FawePlayer;
 import com.boydti.fawe.object.FaweQueue;
-import com.boydti.fawe.object.IntegerPair;
 import com.boydti.fawe.object.RunnableVal;
+import com.boydti.fawe.object.collection.FaweChunkList;
+import com.boydti.fawe.object.collection.LongFaweChunkMap;
 import com.boydti.fawe.object.exception.FaweException;
+import com.boydti.fawe.object.io.MappedSpillFile;
 import com.boydti.fawe.util.MainUtil;
 import com.boydti.fawe.util.MathMan;
+import com.boydti.fawe.util.MemUtil;
 import com.boydti.fawe.util.SetQueue;
 import com.boydti.fawe.util.TaskManager;
 import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.worldedit.EditSession;
 import com.sk89q.worldedit.blocks.BlockMaterial;
+import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.world.biome.BaseBiome;
 import com.sk89q.worldedit.world.registry.BundledBlockData;
+import java.io.File;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
 
 public abstract class MappedFaweQueue<WORLD, CHUNK, SECTION> extends FaweQueue {
 
@@ -31,14 +44,20 @@ public abstract class MappedFaweQueue<WORLD, CHUNK, SECTION> extends FaweQueue {
     /**
      * Map of chunks in the queue
      */
-    public ConcurrentHashMap<Long, FaweChunk> blocks = new ConcurrentHashMap<>();
-    public ConcurrentLinkedDeque<FaweChunk> chunks = new ConcurrentLinkedDeque<FaweChunk>() {
+    public LongFaweChunkMap blocks = new LongFaweChunkMap();
+    /**
+     * Chunks in the order they were added
+     */
+    public FaweChunkList chunks = new FaweChunkList() {
         @Override
         public boolean add(FaweChunk o) {
             if (getProgressTask() != null) {
                 getProgressTask().run(ProgressType.QUEUE, size() + 1);
             }
-            return super.add(o);
+            boolean result = super.add(o);
+            checkSpill();
+            awaitCapacity();
+            return result;
         }
     };
     public ArrayDeque<Runnable> tasks = new ArrayDeque<>();
@@ -48,26 +67,66 @@ public abstract class MappedFaweQueue<WORLD, CHUNK, SECTION> extends FaweQueue {
         return Collections.unmodifiableCollection(chunks);
     }
 
+    /**
+     * Chunks optimized per task
+     */
+    private static final int OPTIMIZE_BATCH = 16;
+
+    private Boolean optimizable;
+
+    /**
+     * Optimize the queued chunks in the background (on the background pool, so placement never waits behind it)<br>
+     *     - Chunks are taken in batches, in dispatch order, so the first chunks are ready first<br>
+     *     - At most one task per parallel thread is submitted, each taking the next batch until none are left<br>
+     *     - This doesn't wait: a chunk polled before it has been optimized is just placed unoptimized
+     */
     @Override
     public void optimize() {
-        ArrayList<Thread> threads = new ArrayList<Thread>();
-        for (final FaweChunk chunk : chunks) {
-            Thread thread = new Thread(new Runnable() {
+        final ArrayList<FaweChunk> queued = chunks.toList();
+        if (queued.isEmpty() || !isOptimizable(queued.get(0))) {
+            return;
+        }
+        for (FaweChunk chunk : queued) {
+            chunk.queueOptimize();
+        }
+        final AtomicInteger next = new AtomicInteger();
+        int batches = (queued.size() + OPTIMIZE_BATCH - 1) / OPTIMIZE_BATCH;
+        int workers = Math.min(batches, Math.max(1, Settings.QUEUE.PARALLEL_THREADS));
+        ForkJoinPool pool = TaskManager.IMP.getBackgroundForkJoinPool();
+        for (int i = 0; i < workers; i++) {
+            pool.execute(new Runnable() {
                 @Override
                 public void run() {
-                    chunk.optimize();
+                    int start;
+                    while ((start = next.getAndAdd(OPTIMIZE_BATCH)) < queued.size()) {
+                        int end = Math.min(queued.size(), start + OPTIMIZE_BATCH);
+                        for (int j = start; j < end; j++) {
+                            try {
+                                queued.get(j).optimizeIfQueued();
+                            } catch (Throwable e) {
+                                MainUtil.handleError(e);
+                            }
+                        }
+                    }
                 }
             });
-            threads.add(thread);
-            thread.start();
         }
-        for (Thread thread : threads) {
+    }
+
+    /**
+     * If the chunk implementation does anything when optimized
+     * @param chunk
+     * @return
+     */
+    private boolean isOptimizable(FaweChunk chunk) {
+        if (optimizable == null) {
             try {
-                thread.join();
-            } catch (InterruptedException e) {
-                MainUtil.handleError(e);
+                optimizable = chunk.getClass().getMethod("optimize").getDeclaringClass() != FaweChunk.class;
+            } catch (NoSuchMethodException e) {
+                optimizable = false;
             }
         }
+        return optimizable;
     }
 
     @Override
@@ -109,7 +168,9 @@ public abstract class MappedFaweQueue<WORLD, CHUNK, SECTION> extends FaweQueue {
 
     @Override
     public boolean regenerateChunk(int x, int z) {
-        return regenerateChunk(getWorld(), x, z);
+        boolean result = regenerateChunk(getWorld(), x, z);
+        invalidateSectionCache(x, z);
+        return result;
     }
 
     @Override
@@ -119,12 +180,11 @@ public abstract class MappedFaweQueue<WORLD, CHUNK, SECTION> extends FaweQueue {
         if (result == null) {
             result = this.getFaweChunk(x, z);
             result.addNotifyTask(runnable);
-            FaweChunk previous = this.blocks.put(pair, result);
+            FaweChunk previous = this.blocks.putIfAbsent(pair, result);
             if (previous == null) {
                 chunks.add(result);
                 return;
             }
-            this.blocks.put(pair, previous);
             result = previous;
         }
         result.addNotifyTask(runnable);
@@ -148,12 +208,11 @@ public abstract class MappedFaweQueue<WORLD, CHUNK, SECTION> extends FaweQueue {
             if (lastWrappedChunk == null) {
                 lastWrappedChunk = this.getFaweChunk(cx, cz);
                 lastWrappedChunk.setBlock(x & 15, y, z & 15, id, data);
-                FaweChunk previous = this.blocks.put(pair, lastWrappedChunk);
+                FaweChunk previous = this.blocks.putIfAbsent(pair, lastWrappedChunk);
                 if (previous == null) {
                     chunks.add(lastWrappedChunk);
                     return true;
                 }
-                this.blocks.put(pair, previous);
                 lastWrappedChunk = previous;
             }
         }
@@ -173,12 +232,11 @@ public abstract class MappedFaweQueue<WORLD, CHUNK, SECTION> extends FaweQueue {
             if (lastWrappedChunk == null) {
                 lastWrappedChunk = this.getFaweChunk(x >> 4, z >> 4);
                 lastWrappedChunk.setBlock(x & 15, y, z & 15, id);
-                FaweChunk previous = this.blocks.put(pair, lastWrappedChunk);
+                FaweChunk previous = this.blocks.putIfAbsent(pair, lastWrappedChunk);
                 if (previous == null) {
                     chunks.add(lastWrappedChunk);
                     return true;
                 }
-                this.blocks.put(pair, previous);
                 lastWrappedChunk = previous;
             }
         }
@@ -201,12 +259,11 @@ public abstract class MappedFaweQueue<WORLD, CHUNK, SECTION> extends FaweQueue {
             if (lastWrappedChunk == null) {
                 lastWrappedChunk = this.getFaweChunk(x >> 4, z >> 4);
                 lastWrappedChunk.setTile(x & 15, y, z & 15, tag);
-                FaweChunk previous = this.blocks.put(pair, lastWrappedChunk);
+                FaweChunk previous = this.blocks.putIfAbsent(pair, lastWrappedChunk);
                 if (previous == null) {
                     chunks.add(lastWrappedChunk);
                     return;
                 }
-                this.blocks.put(pair, previous);
                 lastWrappedChunk = previous;
             }
         }
@@ -228,12 +285,11 @@ public abstract class MappedFaweQueue<WORLD, CHUNK, SECTION> extends FaweQueue {
             if (lastWrappedChunk == null) {
                 lastWrappedChunk = this.getFaweChunk(x >> 4, z >> 4);
                 lastWrappedChunk.setEntity(tag);
-                FaweChunk previous = this.blocks.put(pair, lastWrappedChunk);
+                FaweChunk previous = this.blocks.putIfAbsent(pair, lastWrappedChunk);
                 if (previous == null) {
                     chunks.add(lastWrappedChunk);
                     return;
                 }
-                this.blocks.put(pair, previous);
                 lastWrappedChunk = previous;
             }
         }
@@ -255,12 +311,11 @@ public abstract class MappedFaweQueue<WORLD, CHUNK, SECTION> extends FaweQueue {
             if (lastWrappedChunk == null) {
                 lastWrappedChunk = this.getFaweChunk(x >> 4, z >> 4);
                 lastWrappedChunk.removeEntity(uuid);
-                FaweChunk previous = this.blocks.put(pair, lastWrappedChunk);
+                FaweChunk previous = this.blocks.putIfAbsent(pair, lastWrappedChunk);
                 if (previous == null) {
                     chunks.add(lastWrappedChunk);
                     return;
                 }
-                this.blocks.put(pair, previous);
                 lastWrappedChunk = previous;
             }
         }
@@ -273,9 +328,8 @@ public abstract class MappedFaweQueue<WORLD, CHUNK, SECTION> extends FaweQueue {
         FaweChunk result = this.blocks.get(pair);
         if (result == null) {
             result = this.getFaweChunk(x >> 4, z >> 4);
-            FaweChunk previous = this.blocks.put(pair, result);
+            FaweChunk previous = this.blocks.putIfAbsent(pair, result);
             if (previous != null) {
-                this.blocks.put(pair, previous);
                 result = previous;
             } else {
                 chunks.add(result);
@@ -285,21 +339,39 @@ public abstract class MappedFaweQueue<WORLD, CHUNK, SECTION> extends FaweQueue {
         return true;
     }
 
+    /**
+     * Held while a chunk is placed, so that the chunks of a queue are placed one at a time<br>
+     *     - Polling and unmapping a chunk doesn't need it
+     */
+    protected final Object placeLock = new Object();
+
     @Override
     public FaweChunk next() {
-        lastX = Integer.MIN_VALUE;
-        lastZ = Integer.MIN_VALUE;
         try {
-            if (this.blocks.size() == 0) {
+            if (this.chunks.isEmpty()) {
                 return null;
             }
-            synchronized (blocks) {
-                FaweChunk chunk = chunks.poll();
-                if (chunk != null) {
-                    blocks.remove(chunk.longHash());
+            FaweChunk chunk = chunks.poll();
+            if (chunk != null) {
+                // Only unmap it if it wasn't replaced (setChunk) in the meantime
+                blocks.remove(chunk.longHash(), chunk);
+                synchronized (placeLock) {
+                    lastX = Integer.MIN_VALUE;
+                    lastZ = Integer.MIN_VALUE;
+                    if (chunk instanceof CharFaweChunk) {
+                        ((CharFaweChunk) chunk).restore();
+                    }
+                    // The chunk can only be reused if nothing else can still be holding it (e.g. the change set, or an edit still being queued)
+                    boolean recycle = Settings.QUEUE.POOL.ENABLED && getChangeTask() == null && !isStage(SetQueue.QueueStage.INACTIVE);
+                    chunk.setDispatched();
                     this.execute(chunk);
-                    return chunk;
+                    invalidateSectionCache(chunk.getX(), chunk.getZ());
+                    if (recycle && !chunk.isOptimizeQueued()) {
+                        recycle(chunk);
+                    }
                 }
+                signalCapacity();
+                return chunk;
             }
         } catch (Throwable e) {
             MainUtil.handleError(e);
@@ -307,7 +379,219 @@ public abstract class MappedFaweQueue<WORLD, CHUNK, SECTION> extends FaweQueue {
         return null;
     }
 
+    private final Object spillLock = new Object();
+    private MappedSpillFile spillFile;
+    private int spillCheck;
+    private long lastSpill;
+    private volatile boolean spillRequested;
+    private volatile boolean spillExhausted;
+
+    /**
+     * Spill chunks if memory is running low<br>
+     *     - Called on the thread adding chunks, as it is the only thread which may still be changing them
+     */
+    private void checkSpill() {
+        if (!Settings.QUEUE.SPILL.ENABLED) {
+            return;
+        }
+        if (spillRequested) {
+            spillRequested = false;
+            spillExhausted = spillCold() == 0;
+            return;
+        }
+        if ((++spillCheck & 15) != 0 || chunks.size() <= Settings.QUEUE.SPILL.KEEP_CHUNKS << 1) {
+            return;
+        }
+        if (MemUtil.isMemoryLimited() || MemUtil.getUsedPercent() >= Settings.QUEUE.SPILL.MEMORY_PERCENT) {
+            long now = System.currentTimeMillis();
+            if (now - lastSpill >= 1000) {
+                lastSpill = now;
+                spillCold();
+            }
+        }
+    }
+
+    /**
+     * Move the blocks of chunks which won't be placed for a while to the spill file<br>
+     *     - The chunks next in line, and the most recently added chunks, are kept in memory<br>
+     *     - A spilled chunk is read back when placed (or changed again)
+     * @return The number of chunks spilled
+     */
+    private int spillCold() {
+        synchronized (spillLock) {
+            ArrayList<FaweChunk> queued = chunks.toList();
+            int keep = Settings.QUEUE.SPILL.KEEP_CHUNKS;
+            FaweChunk current = lastWrappedChunk;
+            int count = 0;
+            for (int i = keep; i < queued.size() - keep; i++) {
+                FaweChunk chunk = queued.get(i);
+                if (chunk == current || !(chunk instanceof CharFaweChunk)) {
+                    continue;
+                }
+                if (spillFile == null) {
+                    spillFile = new MappedSpillFile(MainUtil.getFile(Fawe.imp().getDirectory(), Settings.PATHS.SPILL + File.separator + UUID.randomUUID() + ".bin"));
+                }
+                if (((CharFaweChunk) chunk).spill(spillFile)) {
+                    count++;
+                }
+            }
+            if (count != 0) {
+                Fawe.debug("Spilled " + count + " chunks to disk for " + getWorldName());
+            }
+            return count;
+        }
+    }
+
+    private void closeSpillFile() {
+        synchronized (spillLock) {
+            if (spillFile != null) {
+                spillFile.close();
+                spillFile = null;
+            }
+            spillRequested = false;
+            spillExhausted = false;
+        }
+    }
+
+    /**
+     * Spill chunks to disk rather than cancelling the edit (if enabled, and there is something to spill)
+     */
+    @Override
+    public void saveMemory() {
+        if (Settings.QUEUE.SPILL.ENABLED && !spillRequested && !spillExhausted) {
+            if (isStage(SetQueue.QueueStage.INACTIVE)) {
+                // Still being filled, so let the thread filling it spill
+                spillRequested = true;
+                return;
+            }
+            if (spillCold() != 0) {
+                System.gc();
+                return;
+            }
+            spillExhausted = true;
+        }
+        super.saveMemory();
+    }
+
+    private final AtomicBoolean sorting = new AtomicBoolean();
+    private volatile long lastSort;
+    private long lastOrigin = Long.MIN_VALUE;
+    /**
+     * The location chunks are dispatched closest to first (read on the main thread)
+     */
+    private volatile FaweLocation dispatchOrigin;
+
+    /**
+     * Reorder the queued chunks for the dispatch order (in the background)<br>
+     *     - The player location is read here, on the main thread
+     */
+    @Override
+    public void beforePlace() {
+        DispatchOrder order = getDispatchOrder();
+        if (order == null || order == DispatchOrder.INSERTION) {
+            return;
+        }
+        if (order == DispatchOrder.NEAREST) {
+            dispatchOrigin = getDispatchOrigin();
+        }
+        if (chunks.size() <= 1 || System.currentTimeMillis() - lastSort < 50 || !sorting.compareAndSet(false, true)) {
+            return;
+        }
+        final DispatchOrder sortOrder = order;
+        TaskManager.IMP.getBackgroundForkJoinPool().execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    sortChunks(sortOrder);
+                } catch (Throwable e) {
+                    MainUtil.handleError(e);
+                } finally {
+                    lastSort = System.currentTimeMillis();
+                    sorting.set(false);
+                }
+            }
+        });
+    }
+
+    /**
+     * Reorder the queued chunks for a dispatch order<br>
+     *     - Only if chunks were added or the player moved to another chunk<br>
+     *     - Chunks can still be added and placed while sorting (chunks added in between are placed after the sorted chunks)
+     * @param order
+     */
+    private void sortChunks(DispatchOrder order) {
+        FaweChunkList.ChunkKey key = null;
+        if (order == DispatchOrder.NEAREST) {
+            FaweLocation loc = dispatchOrigin;
+            if (loc != null) {
+                final int ox = loc.x >> 4;
+                final int oz = loc.z >> 4;
+                long origin = MathMan.pairInt(ox, oz);
+                if (chunks.isSorted() && origin == lastOrigin) {
+                    return;
+                }
+                lastOrigin = origin;
+                key = new FaweChunkList.ChunkKey() {
+                    @Override
+                    public long getKey(FaweChunk chunk) {
+                        long dx = chunk.getX() - ox;
+                        long dz = chunk.getZ() - oz;
+                        return dx * dx + dz * dz;
+                    }
+                };
+            } else {
+                order = DispatchOrder.HILBERT;
+            }
+        }
+        if (key == null) {
+            if (chunks.isSorted()) {
+                return;
+            }
+            if (order == DispatchOrder.MORTON) {
+                key = new FaweChunkList.ChunkKey() {
+                    @Override
+                    public long getKey(FaweChunk chunk) {
+                        return MathMan.mortonCode(chunk.getX(), chunk.getZ());
+                    }
+                };
+            } else {
+                key = new FaweChunkList.ChunkKey() {
+                    @Override
+                    public long getKey(FaweChunk chunk) {
+                        return MathMan.hilbertCode(chunk.getX(), chunk.getZ());
+                    }
+                };
+            }
+        }
+        if (!chunks.sort(key)) {
+            // A chunk was removed while sorting, try again next time
+            lastOrigin = Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Get the location chunks are dispatched closest to first (for DispatchOrder.NEAREST)<br>
+     *     - Must be called on the main thread
+     * @return The location of a player making an edit in this world, or null
+     */
+    public FaweLocation getDispatchOrigin() {
+        for (EditSession session : getEditSessions()) {
+            FawePlayer player = session.getPlayer();
+            if (player == null) {
+                continue;
+            }
+            FaweLocation loc = player.getLocation();
+            if (loc != null && getWorldName().equals(loc.world)) {
+                return loc;
+            }
+        }
+        return null;
+    }
+
     public void runTasks() {
+        prefetcher.clear();
+        SECTION_CACHE.get().release(cacheId);
+        closeSpillFile();
         if (getProgressTask() != null) {
             getProgressTask().run(ProgressType.DONE, 1);
         }
@@ -325,7 +609,7 @@ public abstract class MappedFaweQueue<WORLD, CHUNK, SECTION> extends FaweQueue {
     @Override
     public int size() {
         int size = chunks.size();
-        if (size == 0 && SetQueue.IMP.getStage(this) != SetQueue.QueueStage.INACTIVE) {
+        if (size == 0 && getStage() != SetQueue.QueueStage.INACTIVE) {
             runTasks();
         }
         return size;
@@ -333,7 +617,7 @@ public abstract class MappedFaweQueue<WORLD, CHUNK, SECTION> extends FaweQueue {
 
     private ConcurrentLinkedDeque<FaweChunk> toUpdate = new ConcurrentLinkedDeque<>();
 
-    private int dispatched = 0;
+    private final AtomicInteger dispatched = new AtomicInteger();
 
     public boolean execute(final FaweChunk fc) {
         if (fc == null) {
@@ -342,8 +626,10 @@ public abstract class MappedFaweQueue<WORLD, CHUNK, SECTION> extends FaweQueue {
         // Set blocks / entities / biome
         if (getProgressTask() != null) {
             getProgressTask().run(ProgressType.QUEUE, chunks.size());
-            getProgressTask().run(ProgressType.DISPATCH, ++dispatched);
+            getProgressTask().run(ProgressType.DISPATCH, dispatched.incrementAndGet());
         }
+        boolean stats = Settings.STATS.ENABLED;
+        long start = stats ? System.nanoTime() : 0;
         if (getChangeTask() != null) {
             if (!this.setComponents(fc, new RunnableVal<FaweChunk>() {
                 @Override
@@ -356,6 +642,10 @@ public abstract class MappedFaweQueue<WORLD, CHUNK, SECTION> extends FaweQueue {
         } else if (!this.setComponents(fc, null)) {
             return false;
         }
+        if (stats) {
+            int blocks = fc instanceof CharFaweChunk ? ((CharFaweChunk) fc).getTotalCount() : 0;
+            getStats().addChunk(blocks, System.nanoTime() - start);
+        }
         fc.executeNotifyTasks();
         return true;
     }
@@ -376,74 +666,220 @@ public abstract class MappedFaweQueue<WORLD, CHUNK, SECTION> extends FaweQueue {
         chunks.add((FaweChunk) chunk);
     }
 
-    public int lastChunkX = Integer.MIN_VALUE;
-    public int lastChunkZ = Integer.MIN_VALUE;
-    public int lastChunkY = Integer.MIN_VALUE;
+    /**
+     * The number of version counters (a power of two)
+     */
+    private static final int SECTION_VERSIONS = 1024;
 
-    public CHUNK lastChunkSections;
-    public SECTION lastSection;
+    /**
+     * Incremented whenever a chunk is placed (for the counter the chunk hashes to), so that readers don't use sections which may have been replaced<br>
+     *     - Counters are shared by chunks which hash to the same one, which only causes an extra lookup
+     */
+    private final AtomicIntegerArray sectionVersions = new AtomicIntegerArray(SECTION_VERSIONS);
+    /**
+     * Incremented to discard every cached section
+     */
+    private final AtomicInteger sectionEpoch = new AtomicInteger();
+
+    /**
+     * One cache per thread, shared by every queue (so long lived threads don't keep an entry for each queue)
+     */
+    private static final ThreadLocal<SectionCache> SECTION_CACHE = new ThreadLocal<SectionCache>() {
+        @Override
+        protected SectionCache initialValue() {
+            return new SectionCache();
+        }
+    };
+    private static final AtomicLong CACHE_IDS = new AtomicLong();
+    private final long cacheId = CACHE_IDS.incrementAndGet();
+
+    /**
+     * Discard the sections cached by readers
+     */
+    public void invalidateSectionCache() {
+        sectionEpoch.incrementAndGet();
+    }
+
+    /**
+     * Discard the sections of a chunk cached by readers
+     * @param cx
+     * @param cz
+     */
+    public void invalidateSectionCache(int cx, int cz) {
+        sectionVersions.incrementAndGet(getVersionIndex(cx, cz));
+    }
+
+    /**
+     * Get the version of a chunk's sections (changes whenever they may have been replaced)<br>
+     *     - Both counters only increase, so the sum changes if either does
+     * @param cx
+     * @param cz
+     * @return
+     */
+    private int getSectionVersion(int cx, int cz) {
+        return sectionEpoch.get() + sectionVersions.get(getVersionIndex(cx, cz));
+    }
+
+    private int getVersionIndex(int cx, int cz) {
+        return (cx * 31 + cz) & (SECTION_VERSIONS - 1);
+    }
+
+    /**
+     * Get the section containing a block<br>
+     *     - Recently read chunks and sections are cached per thread (until the chunk is placed)<br>
+     *     - Empty sections aren't cached, as they may be created at any time
+     * @param x
+     * @param y
+     * @param z
+     * @return The section, or null if it's empty (or the chunk couldn't be loaded)
+     * @throws FaweException.FaweChunkLoadException
+     */
+    public SECTION getSection(int x, int y, int z) throws FaweException.FaweChunkLoadException {
+        int cx = x >> 4;
+        int cz = z >> 4;
+        int cy = y >> 4;
+        SectionCache cache = SECTION_CACHE.get();
+        cache.setOwner(cacheId);
+        // Read before the sections, so a chunk placed in between is seen as a change
+        int version = getSectionVersion(cx, cz);
+        int index = cache.indexOf(cx, cz);
+        if (index == -1 || cache.getVersion(index) != version) {
+            if (!ensureChunkLoaded(cx, cz)) {
+                return null;
+            }
+            CHUNK sections = getCachedSections(getWorld(), cx, cz);
+            if (sections == null) {
+                return null;
+            }
+            index = cache.put(cx, cz, sections, version);
+        }
+        CHUNK sections = (CHUNK) cache.getChunk(index);
+        if ((cy & ~15) != 0) {
+            return getCachedSection(sections, cy);
+        }
+        if (cache.hasSection(index, cy)) {
+            return (SECTION) cache.getSection(index, cy);
+        }
+        SECTION section = getCachedSection(sections, cy);
+        if (section != null) {
+            cache.setSection(index, cy, section);
+        }
+        return section;
+    }
 
     public SECTION getCachedSection(CHUNK chunk, int cy) {
-        return (SECTION) lastChunkSections;
+        return (SECTION) chunk;
     }
 
     public abstract int getCombinedId4Data(SECTION section, int x, int y, int z);
 
-    public final RunnableVal<IntegerPair> loadChunk = new RunnableVal<IntegerPair>() {
-        @Override
-        public void run(IntegerPair coord) {
-            loadChunk(getWorld(), coord.x, coord.z, true);
+    /**
+     * Copy the combined ids of a section (index = (y & 15) << 8 | z << 4 | x)<br>
+     *     - Implementations which store a section as a char[] in the same layout can just copy it
+     * @param section
+     * @param snapshot char[4096]
+     */
+    public void getSectionSnapshot(SECTION section, char[] snapshot) {
+        int index = 0;
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    snapshot[index++] = (char) getCombinedId4Data(section, x, y, z);
+                }
+            }
         }
-    };
+    }
+
+    @Override
+    public boolean getSectionSnapshot(int cx, int cy, int cz, char[] snapshot) throws FaweException.FaweChunkLoadException {
+        SECTION section = getSection(cx << 4, cy << 4, cz << 4);
+        if (section == null) {
+            if (!isChunkLoaded(cx, cz)) {
+                return false;
+            }
+            Arrays.fill(snapshot, 0, 4096, (char) 0);
+            return true;
+        }
+        getSectionSnapshot(section, snapshot);
+        return true;
+    }
+
+    @Override
+    public int getChunkSnapshot(int cx, int cz, char[][] snapshot) throws FaweException.FaweChunkLoadException {
+        int mask = 0;
+        for (int cy = 0; cy < 16; cy++) {
+            SECTION section = getSection(cx << 4, cy << 4, cz << 4);
+            if (section == null) {
+                if (cy == 0 && !isChunkLoaded(cx, cz)) {
+                    return -1;
+                }
+                continue;
+            }
+            char[] array = snapshot[cy];
+            if (array == null) {
+                array = snapshot[cy] = new char[4096];
+            }
+            getSectionSnapshot(section, array);
+            mask |= 1 << cy;
+        }
+        return mask;
+    }
+
+    private final ChunkPrefetcher prefetcher = new ChunkPrefetcher(this);
+
+    public ChunkPrefetcher getPrefetcher() {
+        return prefetcher;
+    }
+
+    @Override
+    public void prefetch(Region region) {
+        if (Settings.HISTORY.CHUNK_WAIT_MS <= 0) {
+            return;
+        }
+        prefetcher.prefetch(region);
+    }
 
     long average = 0;
 
     public boolean ensureChunkLoaded(int cx, int cz) throws FaweException.FaweChunkLoadException {
         if (!isChunkLoaded(cx, cz)) {
             boolean sync = Thread.currentThread() == Fawe.get().getMainThread();
+            long start = System.nanoTime();
             if (sync) {
                 loadChunk(getWorld(), cx, cz, true);
             } else if (Settings.HISTORY.CHUNK_WAIT_MS > 0) {
-                loadChunk.value = new IntegerPair(cx, cz);
-                TaskManager.IMP.syncWhenFree(loadChunk, Settings.HISTORY.CHUNK_WAIT_MS);
-                if (!isChunkLoaded(cx, cz)) {
+                boolean loaded = prefetcher.await(cx, cz, Settings.HISTORY.CHUNK_WAIT_MS) && isChunkLoaded(cx, cz);
+                if (Settings.STATS.ENABLED) {
+                    getStats().addChunkLoad(System.nanoTime() - start);
+                }
+                if (!loaded) {
                     throw new FaweException.FaweChunkLoadException();
                 }
+                return true;
             } else {
                 return false;
             }
+            if (Settings.STATS.ENABLED) {
+                getStats().addChunkLoad(System.nanoTime() - start);
+            }
+        }
+        if (prefetcher.isActive()) {
+            prefetcher.read(cx, cz);
         }
         return true;
     }
 
     @Override
     public boolean hasBlock(int x, int y, int z) throws FaweException.FaweChunkLoadException {
-        int cx = x >> 4;
-        int cz = z >> 4;
-        int cy = y >> 4;
-        if (cx != lastChunkX || cz != lastChunkZ) {
-            lastChunkX = cx;
-            lastChunkZ = cz;
-            if (!ensureChunkLoaded(cx, cz)) {
-                return false;
-            }
-            lastChunkSections = getCachedSections(getWorld(), cx, cz);
-            lastSection = getCachedSection(lastChunkSections, cy);
-        } else if (cy != lastChunkY) {
-            if (lastChunkSections == null) {
-                return false;
-            }
-            lastSection = getCachedSection(lastChunkSections, cy);
-        }
-
-        if (lastSection == null) {
+        SECTION section = getSection(x, y, z);
+        if (section == null) {
             return false;
         }
-        return hasBlock(lastSection, x, y, z);
+        return hasBlock(section, x, y, z);
     }
 
     public boolean hasBlock(SECTION section, int x, int y, int z) {
-        return getCombinedId4Data(lastSection, x, y, z) != 0;
+        return getCombinedId4Data(section, x, y, z) != 0;
     }
 
     public int getOpacity(SECTION section, int x, int y, int z) {
@@ -487,181 +923,64 @@ public abstract class MappedFaweQueue<WORLD, CHUNK, SECTION> extends FaweQueue {
 
     @Override
     public int getLight(int x, int y, int z) {
-        int cx = x >> 4;
-        int cz = z >> 4;
-        int cy = y >> 4;
-        if (cx != lastChunkX || cz != lastChunkZ) {
-            lastChunkX = cx;
-            lastChunkZ = cz;
-            if (!ensureChunkLoaded(cx, cz)) {
-                return 0;
-            }
-            lastChunkSections = getCachedSections(getWorld(), cx, cz);
-            lastSection = getCachedSection(lastChunkSections, cy);
-        } else if (cy != lastChunkY) {
-            if (lastChunkSections == null) {
-                return 0;
-            }
-            lastSection = getCachedSection(lastChunkSections, cy);
-        }
-
-        if (lastSection == null) {
+        SECTION section = getSection(x, y, z);
+        if (section == null) {
             return 0;
         }
-        return getLight(lastSection, x, y, z);
+        return getLight(section, x, y, z);
     }
 
     @Override
     public int getSkyLight(int x, int y, int z) {
-        int cx = x >> 4;
-        int cz = z >> 4;
-        int cy = y >> 4;
-        if (cx != lastChunkX || cz != lastChunkZ) {
-            lastChunkX = cx;
-            lastChunkZ = cz;
-            if (!ensureChunkLoaded(cx, cz)) {
-                return 0;
-            }
-            lastChunkSections = getCachedSections(getWorld(), cx, cz);
-            lastSection = getCachedSection(lastChunkSections, cy);
-        } else if (cy != lastChunkY) {
-            if (lastChunkSections == null) {
-                return 0;
-            }
-            lastSection = getCachedSection(lastChunkSections, cy);
-        }
-        if (lastSection == null) {
+        SECTION section = getSection(x, y, z);
+        if (section == null) {
             return 0;
         }
-        return getSkyLight(lastSection, x, y, z);
+        return getSkyLight(section, x, y, z);
     }
 
     @Override
     public int getEmmittedLight(int x, int y, int z) {
-        int cx = x >> 4;
-        int cz = z >> 4;
-        int cy = y >> 4;
-        if (cx != lastChunkX || cz != lastChunkZ) {
-            lastChunkX = cx;
-            lastChunkZ = cz;
-            if (!ensureChunkLoaded(cx, cz)) {
-                return 0;
-            }
-            lastChunkSections = getCachedSections(getWorld(), cx, cz);
-            lastSection = getCachedSection(lastChunkSections, cy);
-        } else if (cy != lastChunkY) {
-            if (lastChunkSections == null) {
-                return 0;
-            }
-            lastSection = getCachedSection(lastChunkSections, cy);
-        }
-        if (lastSection == null) {
+        SECTION section = getSection(x, y, z);
+        if (section == null) {
             return 0;
         }
-        return getEmmittedLight(lastSection, x, y, z);
+        return getEmmittedLight(section, x, y, z);
     }
 
     @Override
     public int getOpacity(int x, int y, int z) {
-        int cx = x >> 4;
-        int cz = z >> 4;
-        int cy = y >> 4;
-        if (cx != lastChunkX || cz != lastChunkZ) {
-            lastChunkX = cx;
-            lastChunkZ = cz;
-            if (!ensureChunkLoaded(cx, cz)) {
-                return 0;
-            }
-            lastChunkSections = getCachedSections(getWorld(), cx, cz);
-            lastSection = getCachedSection(lastChunkSections, cy);
-        } else if (cy != lastChunkY) {
-            if (lastChunkSections == null) {
-                return 0;
-            }
-            lastSection = getCachedSection(lastChunkSections, cy);
-        }
-
-        if (lastSection == null) {
+        SECTION section = getSection(x, y, z);
+        if (section == null) {
             return 0;
         }
-        return getOpacity(lastSection, x, y, z);
+        return getOpacity(section, x, y, z);
     }
 
     @Override
     public int getOpacityBrightnessPair(int x, int y, int z) {
-        int cx = x >> 4;
-        int cz = z >> 4;
-        int cy = y >> 4;
-        if (cx != lastChunkX || cz != lastChunkZ) {
-            lastChunkX = cx;
-            lastChunkZ = cz;
-            if (!ensureChunkLoaded(cx, cz)) {
-                return 0;
-            }
-            lastChunkSections = getCachedSections(getWorld(), cx, cz);
-            lastSection = getCachedSection(lastChunkSections, cy);
-        } else if (cy != lastChunkY) {
-            if (lastChunkSections == null) {
-                return 0;
-            }
-            lastSection = getCachedSection(lastChunkSections, cy);
-        }
-
-        if (lastSection == null) {
+        SECTION section = getSection(x, y, z);
+        if (section == null) {
             return 0;
         }
-        return getOpacityBrightnessPair(lastSection, x, y, z);
+        return getOpacityBrightnessPair(section, x, y, z);
     }
 
     @Override
     public int getBrightness(int x, int y, int z) {
-        int cx = x >> 4;
-        int cz = z >> 4;
-        int cy = y >> 4;
-        if (cx != lastChunkX || cz != lastChunkZ) {
-            lastChunkX = cx;
-            lastChunkZ = cz;
-            if (!ensureChunkLoaded(cx, cz)) {
-                return 0;
-            }
-            lastChunkSections = getCachedSections(getWorld(), cx, cz);
-            lastSection = getCachedSection(lastChunkSections, cy);
-        } else if (cy != lastChunkY) {
-            if (lastChunkSections == null) {
-                return 0;
-            }
-            lastSection = getCachedSection(lastChunkSections, cy);
-        }
-
-        if (lastSection == null) {
+        SECTION section = getSection(x, y, z);
+        if (section == null) {
             return 0;
         }
-        return getBrightness(lastSection, x, y, z);
+        return getBrightness(section, x, y, z);
     }
 
     @Override
     public int getCombinedId4Data(int x, int y, int z) throws FaweException.FaweChunkLoadException {
-        int cx = x >> 4;
-        int cz = z >> 4;
-        int cy = y >> 4;
-        if (cx != lastChunkX || cz != lastChunkZ) {
-            lastChunkX = cx;
-            lastChunkZ = cz;
-            if (!ensureChunkLoaded(cx, cz)) {
-                return 0;
-            }
-            lastChunkSections = getCachedSections(getWorld(), cx, cz);
-            lastSection = getCachedSection(lastChunkSections, cy);
-        } else if (cy != lastChunkY) {
-            if (lastChunkSections == null) {
-                return 0;
-            }
-            lastSection = getCachedSection(lastChunkSections, cy);
-        }
-
-        if (lastSection == null) {
+        SECTION section = getSection(x, y, z);
+        if (section == null) {
             return 0;
         }
-        return getCombinedId4Data(lastSection, x, y, z);
+        return getCombinedId4Data(section, x, y, z);
     }
 }
@@ -0,0 +1,140 @@
+package com.boydti.fawe.example;
+
+import com.boydti.fawe.FaweCache;
+import com.sk89q.jnbt.CompoundTag;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A chunk stored on the heap (used by the {@link MemoryFaweQueue})<br>
+ *     - Sections use the same layout as a CharFaweChunk (index = y << 8 | z << 4 | x)<br>
+ *     - Light is stored as nibbles, like a vanilla section
+ */
+public class MemoryChunk {
+
+    private final int x;
+    private final int z;
+    private final boolean sky;
+
+    public final Section[] sections = new Section[16];
+    public final byte[] biomes = new byte[256];
+    /**
+     * Tiles keyed by their index in the chunk (y << 8 | z << 4 | x)
+     */
+    public final Map<Integer, CompoundTag> tiles = new ConcurrentHashMap<>();
+
+    public MemoryChunk(int x, int z, boolean sky) {
+        this.x = x;
+        this.z = z;
+        this.sky = sky;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getZ() {
+        return z;
+    }
+
+    public boolean hasSky() {
+        return sky;
+    }
+
+    /**
+     * Get a section, creating it if it doesn't exist
+     * @param layer 0-15
+     * @return
+     */
+    public Section getOrCreateSection(int layer) {
+        Section section = sections[layer];
+        if (section == null) {
+            synchronized (sections) {
+                section = sections[layer];
+                if (section == null) {
+                    section = sections[layer] = new Section(sky);
+                }
+            }
+        }
+        return section;
+    }
+
+    public int getCombinedId(int x, int y, int z) {
+        Section section = sections[FaweCache.CACHE_I[y][x][z]];
+        if (section == null) {
+            return 0;
+        }
+        return section.ids[FaweCache.CACHE_J[y][x][z]];
+    }
+
+    public void setCombinedId(int x, int y, int z, int combined) {
+        Section section = getOrCreateSection(FaweCache.CACHE_I[y][x][z]);
+        section.ids[FaweCache.CACHE_J[y][x][z]] = (char) combined;
+    }
+
+    public static int getIndex(int x, int y, int z) {
+        return (y << 8) | (z << 4) | x;
+    }
+
+    public static class Section {
+        /**
+         * The combined id of each block (0 is air)
+         */
+        public final char[] ids = new char[4096];
+        public final byte[] skyLight;
+        public final byte[] blockLight = new byte[2048];
+
+        public Section(boolean sky) {
+            this.skyLight = sky ? new byte[2048] : null;
+        }
+
+        public int getSkyLight(int index) {
+            if (skyLight == null) {
+                return 0;
+            }
+            return getNibble(skyLight, index);
+        }
+
+        public void setSkyLight(int index, int value) {
+            if (skyLight != null) {
+                setNibble(skyLight, index, value);
+            }
+        }
+
+        public int getBlockLight(int index) {
+            return getNibble(blockLight, index);
+        }
+
+        public void setBlockLight(int index, int value) {
+            setNibble(blockLight, index, value);
+        }
+
+        public void clearLight(boolean sky) {
+            Arrays.fill(blockLight, (byte) 0);
+            if (sky && skyLight != null) {
+                Arrays.fill(skyLight, (byte) 0);
+            }
+        }
+
+        public void setFullbright() {
+            if (skyLight != null) {
+                Arrays.fill(skyLight, (byte) 255);
+            }
+        }
+
+        private static int getNibble(byte[] array, int index) {
+            int value = array[index >> 1];
+            return (index & 1) == 0 ? value & 15 : (value >> 4) & 15;
+        }
+
+        private static void setNibble(byte[] array, int index, int value) {
+            int i = index >> 1;
+            if ((index & 1) == 0) {
+                array[i] = (byte) ((array[i] & 0xF0) | (value & 15));
+            } else {
+                array[i] = (byte) ((array[i] & 0x0F) | ((value & 15) << 4));
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.boydti.fawe.example;
+
+import com.boydti.fawe.object.FaweQueue;
+
+public class MemoryFaweChunk extends CharFaweChunk<MemoryChunk> {
+
+    /**
+     * A FaweSections object represents a chunk and the blocks that you wish to change in it.
+     *
+     * @param parent
+     * @param x
+     * @param z
+     */
+    public MemoryFaweChunk(FaweQueue parent, int x, int z) {
+        super(parent, x, z);
+    }
+
+    @Override
+    public MemoryChunk getNewChunk() {
+        return ((MemoryFaweQueue) getParent()).getImpWorld().getChunk(getX(), getZ(), true);
+    }
+}
@@ -0,0 +1,303 @@
+package com.boydti.fawe.example;
+
+import com.boydti.fawe.FaweCache;
+import com.boydti.fawe.object.BytePair;
+import com.boydti.fawe.object.FaweChunk;
+import com.boydti.fawe.object.RunnableVal;
+import com.boydti.fawe.util.MainUtil;
+import com.boydti.fawe.util.MathMan;
+import com.boydti.fawe.util.SetQueue;
+import com.boydti.fawe.wrappers.MemoryWorld;
+import com.sk89q.jnbt.CompoundTag;
+import java.io.File;
+import java.util.Collection;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A queue for a {@link MemoryWorld} (no server is needed)<br>
+ *     - Chunks are placed on the thread which enqueues or flushes the queue (the SetQueue isn't used)<br>
+ *     - Entities aren't stored, and nothing is sent to players
+ */
+public class MemoryFaweQueue extends NMSMappedFaweQueue<MemoryWorld, MemoryChunk, MemoryChunk, MemoryChunk.Section> {
+
+    private final MemoryWorld world;
+
+    public MemoryFaweQueue(MemoryWorld world) {
+        super(world.getName());
+        this.world = world;
+        // Chunks are only placed when flushed, so waiting for capacity would never return
+        setPendingLimit(0);
+    }
+
+    @Override
+    public MemoryWorld getImpWorld() {
+        return world;
+    }
+
+    @Override
+    public SetQueue.QueueStage getStage() {
+        return SetQueue.QueueStage.NONE;
+    }
+
+    /**
+     * Place every queued chunk on the current thread
+     */
+    @Override
+    public void flush(int time) {
+        while (next() != null) {
+            // Placed
+        }
+        runTasks();
+    }
+
+    @Override
+    public void enqueue() {
+        flush();
+    }
+
+    @Override
+    public void dequeue() {}
+
+    @Override
+    public boolean isChunkLoaded(MemoryWorld world, int x, int z) {
+        return true;
+    }
+
+    @Override
+    public boolean regenerateChunk(MemoryWorld world, int x, int z) {
+        world.removeChunk(x, z);
+        return true;
+    }
+
+    @Override
+    public boolean loadChunk(MemoryWorld world, int x, int z, boolean generate) {
+        return true;
+    }
+
+    @Override
+    public MemoryChunk getCachedSections(MemoryWorld world, int cx, int cz) {
+        return world.getChunk(cx, cz, false);
+    }
+
+    @Override
+    public MemoryChunk.Section getCachedSection(MemoryChunk chunk, int cy) {
+        if ((cy & ~15) != 0) {
+            return null;
+        }
+        return chunk.sections[cy];
+    }
+
+    @Override
+    public MemoryChunk getChunk(MemoryWorld world, int x, int z) {
+        return world.getChunk(x, z, false);
+    }
+
+    @Override
+    public FaweChunk getFaweChunk(int x, int z) {
+        return new MemoryFaweChunk(this, x, z);
+    }
+
+    @Override
+    public boolean setComponents(FaweChunk fc, RunnableVal<FaweChunk> changeTask) {
+        CharFaweChunk fs = (CharFaweChunk) fc;
+        MemoryChunk chunk = world.getChunk(fs.getX(), fs.getZ(), true);
+        if (chunk == null) {
+            return false;
+        }
+        try {
+            // Change task?
+            if (changeTask != null) {
+                CharFaweChunk previous = getPrevious(fs, chunk, chunk.tiles, null, Collections.<UUID>emptySet(), false);
+                changeTask.run(previous);
+            }
+            // Trim tiles
+            Iterator<Integer> iterator = chunk.tiles.keySet().iterator();
+            while (iterator.hasNext()) {
+                int index = iterator.next();
+                int ly = index >> 8;
+                char[] array = fs.getIdArray(ly >> 4);
+                if (array != null && array[FaweCache.CACHE_J[ly][index & 15][(index >> 4) & 15]] != 0) {
+                    iterator.remove();
+                }
+            }
+            // Set blocks
+            for (int j = 0; j < 16; j++) {
+                if (fs.getCount(j) == 0) {
+                    continue;
+                }
+                char[] array = fs.getIdArray(j);
+                if (array == null) {
+                    continue;
+                }
+                char[] ids = chunk.getOrCreateSection(j).ids;
+                for (int i = 0; i < 4096; i++) {
+                    char combinedId = array[i];
+                    switch (combinedId) {
+                        case 0:
+                            continue;
+                        case 1:
+                            ids[i] = 0;
+                            continue;
+                        default:
+                            ids[i] = combinedId;
+                    }
+                }
+            }
+            // Set biomes
+            int[][] biomes = fs.biomes;
+            if (biomes != null) {
+                for (int x = 0; x < 16; x++) {
+                    int[] array = biomes[x];
+                    if (array == null) {
+                        continue;
+                    }
+                    for (int z = 0; z < 16; z++) {
+                        int biome = array[z];
+                        if (biome == 0) {
+                            continue;
+                        }
+                        chunk.biomes[(z << 4) | x] = (byte) biome;
+                    }
+                }
+            }
+            // Set tiles
+            for (Map.Entry<BytePair, CompoundTag> entry : ((Map<BytePair, CompoundTag>) fs.getTiles()).entrySet()) {
+                BytePair pair = entry.getKey();
+                int index = MemoryChunk.getIndex(MathMan.unpair16x(pair.pair[0]), pair.pair[1] & 0xFF, MathMan.unpair16y(pair.pair[0]));
+                chunk.tiles.put(index, entry.getValue());
+            }
+        } catch (Throwable e) {
+            MainUtil.handleError(e);
+        }
+        return true;
+    }
+
+    @Override
+    public CharFaweChunk getPrevious(CharFaweChunk fs, MemoryChunk chunk, Map<?, ?> tilesGeneric, Collection<?>[] entities, Set<UUID> createdEntities, boolean all) throws Exception {
+        Map<Integer, CompoundTag> tiles = (Map<Integer, CompoundTag>) tilesGeneric;
+        CharFaweChunk previous = (CharFaweChunk) getFaweChunk(fs.getX(), fs.getZ());
+        // Copy blocks
+        char[][] idPrevious = new char[16][];
+        for (int layer = 0; layer < 16; layer++) {
+            if (fs.getCount(layer) != 0 || all) {
+                MemoryChunk.Section section = chunk.sections[layer];
+                if (section != null) {
+                    short solid = 0;
+                    char[] previousLayer = idPrevious[layer] = CharFaweChunk.newSection();
+                    char[] ids = section.ids;
+                    for (int j = 0; j < 4096; j++) {
+                        char combined = ids[j];
+                        if (combined > 1) {
+                            solid++;
+                        }
+                        previousLayer[j] = combined;
+                    }
+                    previous.count[layer] = solid;
+                    previous.air[layer] = (short) (4096 - solid);
+                }
+            }
+        }
+        previous.ids = idPrevious;
+        // Copy tiles
+        if (tiles != null) {
+            for (Map.Entry<Integer, CompoundTag> entry : tiles.entrySet()) {
+                int index = entry.getKey();
+                previous.setTile(index & 15, index >> 8, (index >> 4) & 15, entry.getValue());
+            }
+        }
+        return previous;
+    }
+
+    @Override
+    public CompoundTag getTileEntity(MemoryChunk chunk, int x, int y, int z) {
+        return chunk.tiles.get(MemoryChunk.getIndex(x & 15, y, z & 15));
+    }
+
+    @Override
+    public int getCombinedId4Data(MemoryChunk.Section section, int x, int y, int z) {
+        return section.ids[FaweCache.CACHE_J[y][x & 15][z & 15]];
+    }
+
+    @Override
+    public void getSectionSnapshot(MemoryChunk.Section section, char[] snapshot) {
+        System.arraycopy(section.ids, 0, snapshot, 0, 4096);
+    }
+
+    @Override
+    public int getSkyLight(MemoryChunk.Section section, int x, int y, int z) {
+        return section.getSkyLight(FaweCache.CACHE_J[y & 255][x & 15][z & 15]);
+    }
+
+    @Override
+    public int getEmmittedLight(MemoryChunk.Section section, int x, int y, int z) {
+        return section.getBlockLight(FaweCache.CACHE_J[y & 255][x & 15][z & 15]);
+    }
+
+    @Override
+    public void setSkyLight(MemoryChunk.Section section, int x, int y, int z, int value) {
+        section.setSkyLight(FaweCache.CACHE_J[y & 255][x & 15][z & 15], value);
+    }
+
+    @Override
+    public void fillSkyLight(MemoryChunk.Section section, int layer, int value) {
+        if (section.skyLight != null) {
+            Arrays.fill(section.skyLight, (byte) (value | (value << 4)));
+        }
+    }
+
+    @Override
+    public void setBlockLight(MemoryChunk.Section section, int x, int y, int z, int value) {
+        section.setBlockLight(FaweCache.CACHE_J[y & 255][x & 15][z & 15], value);
+    }
+
+    @Override
+    public void setFullbright(MemoryChunk chunk) {
+        for (MemoryChunk.Section section : chunk.sections) {
+            if (section != null) {
+                section.setFullbright();
+            }
+        }
+    }
+
+    @Override
+    public boolean removeLighting(MemoryChunk chunk, RelightMode mode, boolean sky) {
+        if (mode != RelightMode.NONE) {
+            for (MemoryChunk.Section section : chunk.sections) {
+                if (section != null) {
+                    section.clearLight(sky);
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void relight(int x, int y, int z) {}
+
+    @Override
+    public void relightBlock(int x, int y, int z) {}
+
+    @Override
+    public void relightSky(int x, int y, int z) {}
+
+    @Override
+    public void sendChunk(FaweChunk fc) {}
+
+    @Override
+    public void refreshChunk(FaweChunk fc) {}
+
+    @Override
+    public boolean hasSky() {
+        return world.hasSky();
+    }
+
+    @Override
+    public File getSaveFolder() {
+        return null;
+    }
+}
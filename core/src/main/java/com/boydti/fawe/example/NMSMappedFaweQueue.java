@@ -20,24 +20,35 @@ public abstract class NMSMappedFaweQueue<WORLD, CHUNK, CHUNKSECTION, SECTION> ex
 
     @Override
     public boolean execute(FaweChunk fc) {
+        // Compare the blocks before they're replaced, so light neutral changes aren't relit
+        boolean[] lightChanges = getLightingMode() == 1 && fc instanceof CharFaweChunk ? getLightChanges((CharFaweChunk) fc) : null;
         if (super.execute(fc)) {
             sendChunk(fc);
-            if (Settings.LIGHTING.MODE == 0) {
+            int mode = getLightingMode();
+            if (mode == 0) {
                 return true;
             }
             if (relighter == null) {
                 relighter = new NMSRelighter(this);
             }
-            if (Settings.LIGHTING.MODE == 2) {
+            if (mode == 2) {
                 relighter.addChunk(fc.getX(), fc.getZ(), null);
                 return true;
             }
             CharFaweChunk chunk = (CharFaweChunk) fc;
+            // Removed light sources are found now, before anything is relit
+            relighter.addLightRemovals(chunk, lightChanges);
             boolean relight = false;
             boolean[] fix = new boolean[16];
             boolean sky = hasSky();
             for (int i = 0; i < 16; i++) {
-                if ((sky && ((chunk.getAir(i) & 4095) != 0 || (chunk.getCount(i) & 4095) != 0)) || chunk.getRelight(i) != 0) {
+                boolean changed;
+                if (lightChanges != null) {
+                    changed = lightChanges[i];
+                } else {
+                    changed = (sky && ((chunk.getAir(i) & 4095) != 0 || (chunk.getCount(i) & 4095) != 0)) || chunk.getRelight(i) != 0;
+                }
+                if (changed) {
                     relight = true;
                     fix[i] = true;
                 }
@@ -51,17 +62,119 @@ public abstract class NMSMappedFaweQueue<WORLD, CHUNK, CHUNKSECTION, SECTION> ex
         }
     }
 
+    /**
+     * Find the sections of a chunk where the opacity or brightness of a block will change (before the chunk is placed)<br>
+     *     - Other changes (e.g. stone to granite) don't need relighting
+     * @param fc The chunk to be placed
+     * @return The sections with light changes, or null if the chunk isn't loaded (so it isn't known)
+     */
+    public boolean[] getLightChanges(CharFaweChunk fc) {
+        int cx = fc.getX();
+        int cz = fc.getZ();
+        if (!isChunkLoaded(cx, cz)) {
+            return null;
+        }
+        CHUNKSECTION sections = getCachedSections(getWorld(), cx, cz);
+        if (sections == null) {
+            return null;
+        }
+        boolean[] changes = new boolean[16];
+        for (int layer = 0; layer < 16; layer++) {
+            if (fc.getCount(layer) == 0) {
+                continue;
+            }
+            char[] ids = fc.getIdArray(layer);
+            if (ids == null) {
+                continue;
+            }
+            SECTION section = getCachedSection(sections, layer);
+            byte[] cacheX = FaweCache.CACHE_X[layer];
+            short[] cacheY = FaweCache.CACHE_Y[layer];
+            byte[] cacheZ = FaweCache.CACHE_Z[layer];
+            for (int j = 0; j < 4096; j++) {
+                int combined = ids[j];
+                if (combined == 0) {
+                    continue;
+                }
+                int id = combined == 1 ? 0 : FaweCache.getId(combined);
+                int previous = section == null ? 0 : FaweCache.getId(getCombinedId4Data(section, cacheX[j], cacheY[j], cacheZ[j]));
+                if (id != previous && FaweCache.getOpacityBrightnessPair(id) != FaweCache.getOpacityBrightnessPair(previous)) {
+                    changes[layer] = true;
+                    break;
+                }
+            }
+        }
+        return changes;
+    }
+
     @Override
     public void runTasks() {
         super.runTasks();
-        if (relighter != null) {
-            relighter.fixLightingSafe(hasSky());
+        // The last chunk may still be being placed (and adding to the relighter) on another thread
+        synchronized (placeLock) {
+            if (relighter != null && !relighter.isEmpty()) {
+                long start = System.nanoTime();
+                relighter.fixLightingSafe(hasSky());
+                if (Settings.STATS.ENABLED) {
+                    getStats().addRelight(System.nanoTime() - start);
+                }
+            }
         }
     }
 
+    /**
+     * @return The lighting mode used when placing chunks (see Settings.LIGHTING.MODE)
+     */
+    public int getLightingMode() {
+        return Settings.LIGHTING.MODE;
+    }
+
     @Override
     public void sendChunk(final FaweChunk fc) {
+        ChunkSender.IMP.add(this, fc);
+        if (!Settings.QUEUE.RESEND.BATCH) {
+            ChunkSender.IMP.flush();
+        }
+    }
+
+    /**
+     * Send the sections of a chunk to the players who can see it
+     * @param x
+     * @param z
+     * @param mask
+     */
+    public void refreshChunk(int x, int z, int mask) {
+        CharFaweChunk fc = (CharFaweChunk) getFaweChunk(x, z);
+        fc.setBitMask(mask);
         refreshChunk(fc);
+        recycle(fc);
+    }
+
+    /**
+     * Send changed blocks (rather than the whole chunk) to the players who can see a chunk
+     * @param x
+     * @param z
+     * @param positions The changed positions (x << 12 | z << 8 | y)
+     * @param length The number of positions
+     * @return false if not supported, in which case the chunk should be sent instead
+     */
+    public boolean sendBlockChanges(int x, int z, short[] positions, int length) {
+        return false;
+    }
+
+    /**
+     * Get the chunk each player in this world is in (used to send the nearest chunks first)
+     * @return The chunk positions (see {@link com.boydti.fawe.util.MathMan#pairInt(int, int)}), or null if not supported
+     */
+    public long[] getPlayerChunks() {
+        return null;
+    }
+
+    /**
+     * @return The radius (in chunks) that players can see
+     */
+    public int getViewDistance() {
+        return 10;
     }
 
     public abstract void setFullbright(CHUNKSECTION sections);
@@ -103,55 +216,41 @@ public abstract class NMSMappedFaweQueue<WORLD, CHUNK, CHUNKSECTION, SECTION> ex
     public abstract void relightSky(int x, int y, int z);
 
     public void setSkyLight(int x, int y, int z, int value) {
-        int cx = x >> 4;
-        int cz = z >> 4;
-        int cy = y >> 4;
-        if (cx != lastChunkX || cz != lastChunkZ) {
-            lastChunkX = cx;
-            lastChunkZ = cz;
-            if (!ensureChunkLoaded(cx, cz)) {
-                return;
-            }
-            lastChunkSections = getCachedSections(getWorld(), cx, cz);
-            lastSection = getCachedSection(lastChunkSections, cy);
-        } else if (cy != lastChunkY) {
-            if (lastChunkSections == null) {
-                return;
-            }
-            lastSection = getCachedSection(lastChunkSections, cy);
-        }
-        if (lastSection == null) {
+        SECTION section = getSection(x, y, z);
+        if (section == null) {
             return;
         }
-        setSkyLight(lastSection, x, y, z, value);
+        setSkyLight(section, x, y, z, value);
     }
 
     public void setBlockLight(int x, int y, int z, int value) {
-        int cx = x >> 4;
-        int cz = z >> 4;
-        int cy = y >> 4;
-        if (cx != lastChunkX || cz != lastChunkZ) {
-            lastChunkX = cx;
-            lastChunkZ = cz;
-            if (!ensureChunkLoaded(cx, cz)) {
-                return;
-            }
-            lastChunkSections = getCachedSections(getWorld(), cx, cz);
-            lastSection = getCachedSection(lastChunkSections, cy);
-        } else if (cy != lastChunkY) {
-            if (lastChunkSections == null) {
-                return;
-            }
-            lastSection = getCachedSection(lastChunkSections, cy);
-        }
-        if (lastSection == null) {
+        SECTION section = getSection(x, y, z);
+        if (section == null) {
             return;
         }
-        setBlockLight(lastSection, x, y, z, value);
+        setBlockLight(section, x, y, z, value);
     }
 
     public abstract void setSkyLight(SECTION section, int x, int y, int z, int value);
 
+    /**
+     * Set the sky light of every block in a section<br>
+     *     - Implementations should fill the light array directly
+     * @param section
+     * @param layer The section y (0-15)
+     * @param value 0-15
+     */
+    public void fillSkyLight(SECTION section, int layer, int value) {
+        int by = layer << 4;
+        for (int y = by; y < by + 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    setSkyLight(section, x, y, z, value);
+                }
+            }
+        }
+    }
+
     public abstract void setBlockLight(SECTION section, int x, int y, int z, int value);
 
     public abstract void refreshChunk(FaweChunk fs);
@@ -1,28 +1,63 @@
 package com.boydti.fawe.example;
 
 import com.boydti.fawe.FaweCache;
+import com.boydti.fawe.config.Settings;
 import com.boydti.fawe.object.FaweQueue;
+import com.boydti.fawe.object.exception.FaweException;
 import com.boydti.fawe.util.MathMan;
-import java.util.ArrayDeque;
+import com.boydti.fawe.util.TaskManager;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public class NMSRelighter {
     private final NMSMappedFaweQueue queue;
     private final HashMap<Long, RelightSkyEntry> skyToRelight;
     private final HashMap<Long, RelightBlockEntry> blocksToRelight;
+    private final HashMap<Long, RelightBlockEntry> lightToRemove;
+    /**
+     * Light removal candidates found while placing chunks (on any thread), queued on the main thread
+     */
+    private final ConcurrentLinkedQueue<RelightBlockEntry> pendingRemovals = new ConcurrentLinkedQueue<>();
     private volatile boolean relighting = false;
 
-    private static final int DISPATCH_SIZE = 64;
+    /**
+     * Partitions are 16x16 chunks
+     */
+    private static final int PARTITION_BITS = 4;
+
+    /**
+     * Flags a removal candidate which is air (it's only removed if none of its neighbours could have lit it)
+     */
+    private static final int CANDIDATE_AIR = 1 << 20;
+
+    /**
+     * The block light queue (a ring buffer, the length is a power of two)
+     */
+    private int[] lightQueue = new int[4096];
+    private int lightQueueHead;
+    private int lightQueueTail;
+    /**
+     * The sections of the 3x3 chunks around the chunk having its block light relit (index = chunk << 4 | layer)
+     */
+    private final Object[] neighbourSections = new Object[9 * 16];
+    private final boolean[] neighbourLoaded = new boolean[9];
 
     public NMSRelighter(NMSMappedFaweQueue queue) {
         this.queue = queue;
         skyToRelight = new HashMap<>();
         blocksToRelight = new HashMap<>();
+        lightToRemove = new HashMap<>();
+    }
+
+    public boolean isEmpty() {
+        return skyToRelight.isEmpty() && blocksToRelight.isEmpty() && lightToRemove.isEmpty() && pendingRemovals.isEmpty();
     }
 
     public boolean addChunk(int cx, int cz, boolean[] fix) {
@@ -58,6 +93,114 @@ public class NMSRelighter {
         current.addBlock(x, y, z);
     }
 
+    /**
+     * Queue a block which has more block light than it should
+     * @param x
+     * @param y
+     * @param z
+     * @param level The block light it has
+     */
+    public void removeBlockLight(int x, int y, int z, int level) {
+        long pair = MathMan.pairInt(x >> 4, z >> 4);
+        RelightBlockEntry current = lightToRemove.get(pair);
+        if (current == null) {
+            current = new RelightBlockEntry(pair);
+            lightToRemove.put(pair, current);
+        }
+        current.addBlock(x, y, z, level);
+    }
+
+    /**
+     * Find the blocks of a placed chunk which have more block light than they should<br>
+     *     - Light sources which were removed (or replaced by dimmer ones)<br>
+     *     - Blocks placed where there was light<br>
+     *     - Air is only queued if none of its neighbours could have lit it (so light spread from a removed source is found by {@link #fixBlockLightDecrease()} instead)<br>
+     *     - This can be called while chunks are placed in parallel: only the chunk's own sections are read, and the candidates are queued by {@link #queueLightRemovals()} on the main thread
+     * @param chunk The chunk which was placed
+     * @param changes Which sections had light changes (or null if not known)
+     */
+    public void addLightRemovals(CharFaweChunk chunk, boolean[] changes) {
+        Object chunkSections = queue.getCachedSections(queue.getWorld(), chunk.getX(), chunk.getZ());
+        if (chunkSections == null) {
+            return;
+        }
+        RelightBlockEntry candidates = null;
+        for (int layer = 0; layer < 16; layer++) {
+            if (chunk.getCount(layer) == 0 || (changes != null && !changes[layer])) {
+                continue;
+            }
+            char[] ids = chunk.getIdArray(layer);
+            if (ids == null) {
+                continue;
+            }
+            Object section = queue.getCachedSection(chunkSections, layer);
+            if (section == null) {
+                continue;
+            }
+            byte[] cacheX = FaweCache.CACHE_X[layer];
+            short[] cacheY = FaweCache.CACHE_Y[layer];
+            byte[] cacheZ = FaweCache.CACHE_Z[layer];
+            for (int j = 0; j < 4096; j++) {
+                if (ids[j] == 0) {
+                    continue;
+                }
+                int x = cacheX[j];
+                int y = cacheY[j];
+                int z = cacheZ[j];
+                int light = queue.getEmmittedLight(section, x, y, z);
+                if (light == 0 || light <= queue.getBrightness(section, x, y, z)) {
+                    continue;
+                }
+                if (candidates == null) {
+                    candidates = new RelightBlockEntry(MathMan.pairInt(chunk.getX(), chunk.getZ()));
+                }
+                candidates.addBlock(x, y, z, light);
+                if (!queue.hasBlock(section, x, y, z)) {
+                    candidates.blocks[candidates.size - 1] |= CANDIDATE_AIR;
+                }
+            }
+        }
+        if (candidates != null) {
+            pendingRemovals.add(candidates);
+        }
+    }
+
+    /**
+     * Queue the candidates found by {@link #addLightRemovals} to have their light removed<br>
+     *     - Must be called on the main thread, as neighbouring chunks may need to be loaded
+     */
+    public void queueLightRemovals() {
+        RelightBlockEntry candidates;
+        while ((candidates = pendingRemovals.poll()) != null) {
+            int bx = candidates.getX() << 4;
+            int bz = candidates.getZ() << 4;
+            int[] blocks = candidates.blocks;
+            for (int i = 0; i < candidates.size; i++) {
+                int packed = blocks[i];
+                int x = bx + (packed & 15);
+                int y = (packed >> 8) & 0xFF;
+                int z = bz + ((packed >> 4) & 15);
+                int light = (packed >> 16) & 15;
+                if ((packed & CANDIDATE_AIR) != 0 && isSupported(x, y, z, light)) {
+                    continue;
+                }
+                removeBlockLight(x, y, z, light);
+            }
+        }
+    }
+
+    /**
+     * If a neighbouring block has enough light to have lit a block
+     */
+    private boolean isSupported(int x, int y, int z, int light) {
+        return queue.getEmmittedLight(x - 1, y, z) > light
+                || queue.getEmmittedLight(x + 1, y, z) > light
+                || queue.getEmmittedLight(x, y, z - 1) > light
+                || queue.getEmmittedLight(x, y, z + 1) > light
+                || (y > 0 && queue.getEmmittedLight(x, y - 1, z) > light)
+                || (y < 255 && queue.getEmmittedLight(x, y + 1, z) > light);
+    }
+
     public void smoothBlockLight(int emit, int x, int y, int z, int rx, int ry, int rz) {
         if (queue.hasBlock(rx, ry, rz)) {
             return;
@@ -75,6 +218,8 @@ public class NMSRelighter {
         }
         relighting = true;
         try {
+            queueLightRemovals();
+            fixBlockLightDecrease();
             if (sky) {
                 fixSkyLighting();
             }
@@ -86,35 +231,234 @@ public class NMSRelighter {
         relighting = false;
     }
 
+    /**
+     * Remove the light from the blocks queued with {@link #removeBlockLight} (before the light is spread again)<br>
+     *     - Breadth first from each block, removing the light it spread (neighbours with less light)<br>
+     *     - Neighbours with at least as much light are lit by something else, so they're queued to spread their light again<br>
+     *     - Light spreads at most 15 blocks, so this stays within the 3x3 chunks around each chunk
+     */
+    public void fixBlockLightDecrease() {
+        while (!lightToRemove.isEmpty()) {
+            RelightBlockEntry current = lightToRemove.values().iterator().next();
+            lightToRemove.remove(current.coord);
+            fixBlockLightDecrease(current);
+        }
+    }
+
+    private void fixBlockLightDecrease(RelightBlockEntry current) {
+        int cx = current.getX();
+        int cz = current.getZ();
+        resetNeighbourhood();
+        int[] blocks = current.blocks;
+        for (int i = 0; i < current.size; i++) {
+            int value = blocks[i];
+            int x = (value & 15) + 16;
+            int y = (value >> 8) & 0xFF;
+            int z = ((value >> 4) & 15) + 16;
+            Object section = getNeighbourSection(cx, cz, x, y, z);
+            if (section == null) {
+                continue;
+            }
+            queue.setBlockLight(section, x & 15, y, z & 15, 0);
+            offer(((value >>> 16) << 20) | pack(x, y, z));
+        }
+        while (lightQueueHead != lightQueueTail) {
+            int packed = lightQueue[lightQueueHead];
+            lightQueueHead = (lightQueueHead + 1) & (lightQueue.length - 1);
+            int level = packed >>> 20;
+            int x = packed & 63;
+            int z = (packed >> 6) & 63;
+            int y = (packed >> 12) & 0xFF;
+            decreaseBlockLight(cx, cz, level, x - 1, y, z);
+            decreaseBlockLight(cx, cz, level, x + 1, y, z);
+            decreaseBlockLight(cx, cz, level, x, y, z - 1);
+            decreaseBlockLight(cx, cz, level, x, y, z + 1);
+            if (y > 0) {
+                decreaseBlockLight(cx, cz, level, x, y - 1, z);
+            }
+            if (y < 255) {
+                decreaseBlockLight(cx, cz, level, x, y + 1, z);
+            }
+        }
+        // Light sources which were replaced by dimmer ones
+        int bx = cx << 4;
+        int bz = cz << 4;
+        for (int i = 0; i < current.size; i++) {
+            int value = blocks[i];
+            int x = value & 15;
+            int y = (value >> 8) & 0xFF;
+            int z = (value >> 4) & 15;
+            Object section = getNeighbourSection(cx, cz, x + 16, y, z + 16);
+            if (section == null) {
+                continue;
+            }
+            int brightness = queue.getBrightness(section, x, y, z);
+            if (brightness > 1) {
+                queue.setBlockLight(section, x, y, z, brightness);
+                addBlock(bx + x, y, bz + z);
+            }
+        }
+    }
+
+    /**
+     * Remove the light a block spread to a neighbour (relative to the 3x3 chunks around cx, cz)
+     */
+    private void decreaseBlockLight(int cx, int cz, int level, int x, int y, int z) {
+        if (x < 0 || x >= 48 || z < 0 || z >= 48) {
+            return;
+        }
+        Object section = getNeighbourSection(cx, cz, x, y, z);
+        if (section == null) {
+            return;
+        }
+        int lx = x & 15;
+        int lz = z & 15;
+        int light = queue.getEmmittedLight(section, lx, y, lz);
+        if (light == 0) {
+            return;
+        }
+        if (light < level) {
+            queue.setBlockLight(section, lx, y, lz, 0);
+            offer((light << 20) | pack(x, y, z));
+        } else {
+            // Lit by something else
+            addBlock(((cx - 1) << 4) + x, y, ((cz - 1) << 4) + z);
+        }
+    }
+
+    /**
+     * Spread the block light from the queued blocks<br>
+     *     - Breadth first, one chunk at a time, using a ring buffer of packed coordinates (see {@link #pack})<br>
+     *     - Light spreads at most 15 blocks, so it stays within the 3x3 chunks around the chunk, whose sections are cached
+     */
     public void fixBlockLighting() {
         while (!blocksToRelight.isEmpty()) {
-            RelightBlockEntry current = blocksToRelight.entrySet().iterator().next().getValue();
-            int bx = current.getX() << 4;
-            int bz = current.getZ() << 4;
-            while (!current.blocks.isEmpty()) {
-                short coord = current.blocks.pollFirst();
-                byte layer = MathMan.unpairShortX(coord);
-                int y = MathMan.unpairShortY(coord) & 0xFF;
-                int x = MathMan.unpair16x(layer);
-                int z = MathMan.unpair16y(layer);
-                int xx = bx + x;
-                int zz = bz + z;
-                int emit = queue.getEmmittedLight(xx, y, zz);
-                if (emit < 2) {
-                    continue;
-                }
-                smoothBlockLight(emit, xx, y, zz, xx - 1, y, zz);
-                smoothBlockLight(emit, xx, y, zz, xx + 1, y, zz);
-                smoothBlockLight(emit, xx, y, zz, xx, y, zz - 1);
-                smoothBlockLight(emit, xx, y, zz, xx, y, zz + 1);
-                if (y > 0) {
-                    smoothBlockLight(emit, xx, y, zz, xx, y - 1, zz);
-                }
-                if (y < 255) {
-                    smoothBlockLight(emit, xx, y, zz, xx, y + 1, zz);
+            RelightBlockEntry current = blocksToRelight.values().iterator().next();
+            blocksToRelight.remove(current.coord);
+            fixBlockLighting(current);
+        }
+    }
+
+    private void fixBlockLighting(RelightBlockEntry current) {
+        int cx = current.getX();
+        int cz = current.getZ();
+        resetNeighbourhood();
+        int[] blocks = current.blocks;
+        for (int i = 0; i < current.size; i++) {
+            int local = blocks[i];
+            offer(pack((local & 15) + 16, (local >> 8) & 0xFF, ((local >> 4) & 15) + 16));
+        }
+        while (lightQueueHead != lightQueueTail) {
+            int packed = lightQueue[lightQueueHead];
+            lightQueueHead = (lightQueueHead + 1) & (lightQueue.length - 1);
+            int x = packed & 63;
+            int z = (packed >> 6) & 63;
+            int y = (packed >> 12) & 0xFF;
+            Object section = getNeighbourSection(cx, cz, x, y, z);
+            if (section == null) {
+                continue;
+            }
+            int emit = queue.getEmmittedLight(section, x & 15, y, z & 15);
+            if (emit < 2) {
+                continue;
+            }
+            spreadBlockLight(cx, cz, emit, x - 1, y, z);
+            spreadBlockLight(cx, cz, emit, x + 1, y, z);
+            spreadBlockLight(cx, cz, emit, x, y, z - 1);
+            spreadBlockLight(cx, cz, emit, x, y, z + 1);
+            if (y > 0) {
+                spreadBlockLight(cx, cz, emit, x, y - 1, z);
+            }
+            if (y < 255) {
+                spreadBlockLight(cx, cz, emit, x, y + 1, z);
+            }
+        }
+    }
+
+    /**
+     * Spread light to a block (relative to the 3x3 chunks around cx, cz)
+     */
+    private void spreadBlockLight(int cx, int cz, int emit, int x, int y, int z) {
+        if (x < 0 || x >= 48 || z < 0 || z >= 48) {
+            // Outside the 3x3 chunks (light from blocks queued elsewhere)
+            int bx = (cx - 1) << 4;
+            int bz = (cz - 1) << 4;
+            smoothBlockLight(emit, 0, 0, 0, bx + x, y, bz + z);
+            return;
+        }
+        Object section = getNeighbourSection(cx, cz, x, y, z);
+        if (section == null) {
+            return;
+        }
+        int lx = x & 15;
+        int lz = z & 15;
+        if (queue.hasBlock(section, lx, y, lz)) {
+            return;
+        }
+        int emitAdjacent = queue.getEmmittedLight(section, lx, y, lz);
+        if (emit - emitAdjacent > 2) {
+            queue.setBlockLight(section, lx, y, lz, emit - 1);
+            if (y >= 1) {
+                offer(pack(x, y, z));
+            }
+        }
+    }
+
+    private void resetNeighbourhood() {
+        Arrays.fill(neighbourLoaded, false);
+        Arrays.fill(neighbourSections, null);
+        lightQueueHead = 0;
+        lightQueueTail = 0;
+    }
+
+    /**
+     * Get a section of the 3x3 chunks around cx, cz (x and z are relative to the corner chunk)
+     * @return The section, or null if it's empty (or the chunk isn't loaded)
+     */
+    private Object getNeighbourSection(int cx, int cz, int x, int y, int z) {
+        int index = (x >> 4) + (z >> 4) * 3;
+        if (!neighbourLoaded[index]) {
+            neighbourLoaded[index] = true;
+            int ncx = cx - 1 + (x >> 4);
+            int ncz = cz - 1 + (z >> 4);
+            try {
+                if (queue.ensureChunkLoaded(ncx, ncz)) {
+                    Object sections = queue.getCachedSections(queue.getWorld(), ncx, ncz);
+                    if (sections != null) {
+                        for (int layer = 0; layer < 16; layer++) {
+                            neighbourSections[(index << 4) + layer] = queue.getCachedSection(sections, layer);
+                        }
+                    }
                 }
+            } catch (FaweException.FaweChunkLoadException ignore) {
+                // No light is spread into chunks which aren't loaded
             }
-            blocksToRelight.remove(current.coord);
+        }
+        return neighbourSections[(index << 4) + (y >> 4)];
+    }
+
+    /**
+     * Pack a block relative to the 3x3 chunks being relit (x and z are 0-47)
+     * @return y << 12 | z << 6 | x
+     */
+    private static int pack(int x, int y, int z) {
+        return (y << 12) | (z << 6) | x;
+    }
+
+    private void offer(int packed) {
+        int[] array = lightQueue;
+        int mask = array.length - 1;
+        lightQueue[lightQueueTail] = packed;
+        lightQueueTail = (lightQueueTail + 1) & mask;
+        if (lightQueueTail == lightQueueHead) {
+            // Full, so double it (keeping the order)
+            int[] grown = new int[array.length << 1];
+            int head = lightQueueHead;
+            System.arraycopy(array, head, grown, 0, array.length - head);
+            System.arraycopy(array, 0, grown, array.length - head, head);
+            lightQueue = grown;
+            lightQueueHead = 0;
+            lightQueueTail = array.length;
         }
     }
 
@@ -144,39 +488,108 @@ public class NMSRelighter {
         if (y < 255 && !queue.hasBlock(x, y + 1, z)) { queue.setBlockLight(x, y + 1, z, brightness); addBlock(x, y + 1, z); }
     }
 
+    /**
+     * Relight the sky light of the chunks<br>
+     *     - The chunks are split into partitions of 16x16 chunks, which are relit in parallel (see Settings.LIGHTING.PARALLEL)<br>
+     *     - While relighting a partition, light isn't read from the other partitions<br>
+     *     - Light spilling across the edges of partitions is then added by {@link #reconcileSkyLight}
+     */
     public void fixSkyLighting() {
         // Order chunks
         ArrayList<RelightSkyEntry> chunksList = new ArrayList<>(skyToRelight.values());
         Collections.sort(chunksList);
-        int size = chunksList.size();
-        if (size > DISPATCH_SIZE) {
-            int amount = (size + 1) / DISPATCH_SIZE;
-            for (int i = 0; i <= amount; i++) {
-                int start = i * DISPATCH_SIZE;
-                int end = Math.min(size, start + DISPATCH_SIZE);
-                List<RelightSkyEntry> sub = chunksList.subList(start, end);
-                fixSkyLighting(sub);
+        boolean parallel = Settings.LIGHTING.PARALLEL && Settings.QUEUE.PARALLEL_THREADS > 1 && TaskManager.IMP != null;
+        // Partition the chunks
+        final LinkedHashMap<Long, SkyPartition> partitions = new LinkedHashMap<>();
+        for (RelightSkyEntry chunk : chunksList) {
+            long key = parallel ? MathMan.pairInt(chunk.x >> PARTITION_BITS, chunk.z >> PARTITION_BITS) : 0;
+            SkyPartition partition = partitions.get(key);
+            if (partition == null) {
+                partition = new SkyPartition(parallel);
+                partitions.put(key, partition);
             }
+            partition.chunks.add(chunk);
+            chunk.partition = partition;
+        }
+        if (partitions.size() <= 1) {
+            parallel = false;
+        }
+        // Load the chunks (and their neighbours) on this thread, as the worker threads can't load chunks
+        final HashSet<Long> loaded = new HashSet<>();
+        for (RelightSkyEntry chunk : chunksList) {
+            queue.ensureChunkLoaded(chunk.x, chunk.z);
+            chunk.sections = queue.getCachedSections(queue.getWorld(), chunk.x, chunk.z);
+            if (parallel) {
+                loadNeighbour(chunk.x - 1, chunk.z, loaded);
+                loadNeighbour(chunk.x + 1, chunk.z, loaded);
+                loadNeighbour(chunk.x, chunk.z - 1, loaded);
+                loadNeighbour(chunk.x, chunk.z + 1, loaded);
+            }
+        }
+        if (parallel) {
+            ArrayList<Runnable> tasks = new ArrayList<>(partitions.size());
+            for (final SkyPartition partition : partitions.values()) {
+                partition.loaded = loaded;
+                tasks.add(new Runnable() {
+                    @Override
+                    public void run() {
+                        fixSkyLighting(partition);
+                    }
+                });
+            }
+            TaskManager.IMP.parallel(tasks, null);
         } else {
-            fixSkyLighting(chunksList);
+            for (SkyPartition partition : partitions.values()) {
+                fixSkyLighting(partition);
+            }
+        }
+        // Light sources found while relighting
+        for (SkyPartition partition : partitions.values()) {
+            int[] sources = partition.lightSources;
+            for (int i = 0; i < partition.lightSourceCount; i += 4) {
+                lightBlock(sources[i], sources[i + 1], sources[i + 2], sources[i + 3]);
+            }
+        }
+        if (parallel) {
+            reconcileSkyLight(chunksList);
+        }
+    }
+
+    private void loadNeighbour(int cx, int cz, HashSet<Long> loaded) {
+        long pair = MathMan.pairInt(cx, cz);
+        if (skyToRelight.containsKey(pair) || loaded.contains(pair)) {
+            return;
+        }
+        try {
+            if (queue.ensureChunkLoaded(cx, cz)) {
+                loaded.add(pair);
+            }
+        } catch (FaweException.FaweChunkLoadException ignore) {
+            // Light isn't read from chunks which aren't loaded
         }
     }
 
-    private void fixSkyLighting(List<RelightSkyEntry> sorted) {
-        RelightSkyEntry[] chunks = sorted.toArray(new RelightSkyEntry[sorted.size()]);
+    private void fixSkyLighting(SkyPartition partition) {
+        RelightSkyEntry[] chunks = partition.chunks.toArray(new RelightSkyEntry[partition.chunks.size()]);
         byte[] cacheX = FaweCache.CACHE_X[0];
         byte[] cacheZ = FaweCache.CACHE_Z[0];
+        for (RelightSkyEntry chunk : chunks) {
+            fillOpenSky(chunk);
+        }
         for (int y = 255; y > 0; y--) {
             for (RelightSkyEntry chunk : chunks) { // Propogate skylight
                 int layer = y >> 4;
                 if (!chunk.fix[layer]) {
                     continue;
                 }
+                if (y >= chunk.openSky) {
+                    chunk.smooth = false;
+                    continue;
+                }
                 int bx = chunk.x << 4;
                 int bz = chunk.z << 4;
                 byte[] mask = chunk.mask;
-                queue.ensureChunkLoaded(chunk.x, chunk.z);
-                Object sections = queue.getCachedSections(queue.getWorld(), chunk.x, chunk.z);
+                Object sections = chunk.sections;
                 if (sections == null) continue;
                 Object section = queue.getCachedSection(sections, layer);
                 if (section == null) continue;
@@ -189,7 +602,7 @@ public class NMSRelighter {
                     int opacity = MathMan.unpair16x(pair);
                     int brightness = MathMan.unpair16y(pair);
                     if (brightness > 1 &&  (brightness != 15 || opacity != 15)) {
-                        lightBlock(bx + x, y, bz + z, brightness);
+                        partition.addLightSource(bx + x, y, bz + z, brightness);
                     }
                     if (opacity != 0 && opacity >= value) {
                         mask[j] = 0;
@@ -257,12 +670,78 @@ public class NMSRelighter {
 
     }
 
+    /**
+     * Fill the sections above the highest block which affects light with full sky light<br>
+     *     - The highest block is found from the section arrays (top down)<br>
+     *     - Nothing above it can block or emit light, so the sky light is 15 and those sections don't need to be propagated
+     * @param chunk
+     */
+    private void fillOpenSky(RelightSkyEntry chunk) {
+        chunk.openSky = 256;
+        Object sections = chunk.sections;
+        if (sections == null) {
+            return;
+        }
+        int top = getHighestLightBlock(sections);
+        // The first section entirely above it
+        int openLayer = (top + 16) >> 4;
+        chunk.openSky = openLayer << 4;
+        for (int layer = openLayer; layer < 16; layer++) {
+            if (!chunk.fix[layer]) {
+                continue;
+            }
+            Object section = queue.getCachedSection(sections, layer);
+            if (section != null) {
+                queue.fillSkyLight(section, layer, 15);
+            }
+        }
+    }
+
+    /**
+     * @return The y of the highest block which blocks or emits light, or -1 if there are none
+     */
+    private int getHighestLightBlock(Object sections) {
+        for (int layer = 15; layer >= 0; layer--) {
+            Object section = queue.getCachedSection(sections, layer);
+            if (section == null) {
+                continue;
+            }
+            int by = layer << 4;
+            for (int y = by + 15; y >= by; y--) {
+                for (int z = 0; z < 16; z++) {
+                    for (int x = 0; x < 16; x++) {
+                        int combined = queue.getCombinedId4Data(section, x, y, z);
+                        if (combined != 0 && FaweCache.getOpacityBrightnessPair(FaweCache.getId(combined)) != 0) {
+                            return y;
+                        }
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Get the sky light of a neighbouring block, while relighting a partition
+     * @return The light, or 0 if it's in another partition (or wasn't loaded)
+     */
+    private int getSkyLight(SkyPartition partition, int x, int y, int z) {
+        if (partition.isolated) {
+            long pair = MathMan.pairInt(x >> 4, z >> 4);
+            RelightSkyEntry other = skyToRelight.get(pair);
+            if (other != null ? other.partition != partition : !partition.loaded.contains(pair)) {
+                return 0;
+            }
+        }
+        return queue.getSkyLight(x, y, z);
+    }
+
     public void smoothSkyLight(RelightSkyEntry chunk, int y, boolean direction) {
         byte[] mask = chunk.mask;
         int bx = chunk.x << 4;
         int bz = chunk.z << 4;
-        queue.ensureChunkLoaded(chunk.x, chunk.z);
-        Object sections = queue.getCachedSections(queue.getWorld(), chunk.x, chunk.z);
+        SkyPartition partition = chunk.partition;
+        Object sections = chunk.sections;
         if (sections == null) return;
         Object section = queue.getCachedSection(sections, y >> 4);
         if (section == null) return;
@@ -274,8 +753,8 @@ public class NMSRelighter {
                     continue;
                 }
                 byte value = mask[j];
-                if ((value = (byte) Math.max(queue.getSkyLight(bx + x - 1, y, bz + z) - 1, value)) >= 14);
-                else if ((value = (byte) Math.max(queue.getSkyLight(bx + x, y, bz + z - 1) - 1, value)) >= 14);
+                if ((value = (byte) Math.max(getSkyLight(partition, bx + x - 1, y, bz + z) - 1, value)) >= 14);
+                else if ((value = (byte) Math.max(getSkyLight(partition, bx + x, y, bz + z - 1) - 1, value)) >= 14);
                 if (value > mask[j]) queue.setSkyLight(section, x, y, z, mask[j] = value);
             }
         } else {
@@ -286,13 +765,79 @@ public class NMSRelighter {
                     continue;
                 }
                 byte value = mask[j];
-                if ((value = (byte) Math.max(queue.getSkyLight(bx + x + 1, y, bz + z) - 1, value)) >= 14);
-                else if ((value = (byte) Math.max(queue.getSkyLight(bx + x, y, bz + z + 1) - 1, value)) >= 14);
+                if ((value = (byte) Math.max(getSkyLight(partition, bx + x + 1, y, bz + z) - 1, value)) >= 14);
+                else if ((value = (byte) Math.max(getSkyLight(partition, bx + x, y, bz + z + 1) - 1, value)) >= 14);
                 if (value > mask[j]) queue.setSkyLight(section, x, y, z, mask[j] = value);
             }
         }
     }
 
+    /**
+     * Add the light spilling across the edges of partitions (after they have been relit)<br>
+     *     - Only chunks next to a chunk in another partition are changed<br>
+     *     - Top down, so light spilling into a column is carried down it
+     * @param chunksList The sorted chunks
+     */
+    private void reconcileSkyLight(List<RelightSkyEntry> chunksList) {
+        ArrayList<RelightSkyEntry> edges = new ArrayList<>();
+        for (RelightSkyEntry chunk : chunksList) {
+            if (isEdge(chunk, chunk.x - 1, chunk.z) || isEdge(chunk, chunk.x + 1, chunk.z) || isEdge(chunk, chunk.x, chunk.z - 1) || isEdge(chunk, chunk.x, chunk.z + 1)) {
+                edges.add(chunk);
+            }
+        }
+        if (edges.isEmpty()) {
+            return;
+        }
+        RelightSkyEntry[] chunks = edges.toArray(new RelightSkyEntry[edges.size()]);
+        for (int y = 255; y > 0; y--) {
+            for (RelightSkyEntry chunk : chunks) { // Forwards
+                reconcileSkyLight(chunk, y, true);
+            }
+            for (int i = chunks.length - 1; i >= 0; i--) { // Backwards
+                reconcileSkyLight(chunks[i], y, false);
+            }
+        }
+    }
+
+    private boolean isEdge(RelightSkyEntry chunk, int cx, int cz) {
+        RelightSkyEntry other = skyToRelight.get(MathMan.pairInt(cx, cz));
+        return other != null && other.partition != chunk.partition;
+    }
+
+    private void reconcileSkyLight(RelightSkyEntry chunk, int y, boolean direction) {
+        if (!chunk.fix[y >> 4] || chunk.sections == null) {
+            return;
+        }
+        Object section = queue.getCachedSection(chunk.sections, y >> 4);
+        if (section == null) {
+            return;
+        }
+        int bx = chunk.x << 4;
+        int bz = chunk.z << 4;
+        int offset = direction ? -1 : 1;
+        for (int i = 0; i < 256; i++) {
+            int j = direction ? i : 255 - i;
+            int x = j & 15;
+            int z = j >> 4;
+            int current = queue.getSkyLight(section, x, y, z);
+            if (current >= 14 || (current == 0 && queue.getOpacity(section, x, y, z) > 0)) {
+                continue;
+            }
+            int value = current;
+            if (y < 255) {
+                int above = queue.getSkyLight(bx + x, y + 1, bz + z);
+                if (above < 15) {
+                    value = Math.max(value, above - 1);
+                }
+            }
+            value = Math.max(value, queue.getSkyLight(bx + x + offset, y, bz + z) - 1);
+            value = Math.max(value, queue.getSkyLight(bx + x, y, bz + z + offset) - 1);
+            if (value > current) {
+                queue.setSkyLight(section, x, y, z, value);
+            }
+        }
+    }
+
     public boolean isUnlit(byte[] array) {
         for (byte val : array) {
             if (val != 0) {
@@ -304,17 +849,27 @@ public class NMSRelighter {
 
     private class RelightBlockEntry {
         public long coord;
-        public ArrayDeque<Short> blocks;
+        /**
+         * The queued blocks (level << 16 | y << 8 | z << 4 | x)
+         */
+        public int[] blocks;
+        public int size;
 
         public RelightBlockEntry(long pair) {
             this.coord = pair;
-            this.blocks = new ArrayDeque<>(1);
+            this.blocks = new int[16];
         }
 
         public void addBlock(int x, int y, int z) {
-            byte layer = MathMan.pair16(x & 15, z & 15);
-            short coord = MathMan.pairByte(layer, y);
-            blocks.add(coord);
+            if (size == blocks.length) {
+                blocks = Arrays.copyOf(blocks, size << 1);
+            }
+            blocks[size++] = (y << 8) | ((z & 15) << 4) | (x & 15);
+        }
+
+        public void addBlock(int x, int y, int z, int level) {
+            addBlock(x, y, z);
+            blocks[size - 1] |= level << 16;
         }
 
         public int getX() {
@@ -326,12 +881,52 @@ public class NMSRelighter {
         }
     }
 
+    /**
+     * Chunks which are relit together (on one thread)
+     */
+    private static class SkyPartition {
+        public final ArrayList<RelightSkyEntry> chunks = new ArrayList<>();
+        /**
+         * If light can't be read from other partitions (as they're being relit at the same time)
+         */
+        public final boolean isolated;
+        /**
+         * The chunks outside the partitions which light can be read from
+         */
+        public HashSet<Long> loaded;
+        /**
+         * x, y, z, brightness of each light source found
+         */
+        public int[] lightSources = new int[64];
+        public int lightSourceCount;
+
+        public SkyPartition(boolean isolated) {
+            this.isolated = isolated;
+        }
+
+        public void addLightSource(int x, int y, int z, int brightness) {
+            if (lightSourceCount + 4 > lightSources.length) {
+                lightSources = Arrays.copyOf(lightSources, lightSources.length << 1);
+            }
+            lightSources[lightSourceCount++] = x;
+            lightSources[lightSourceCount++] = y;
+            lightSources[lightSourceCount++] = z;
+            lightSources[lightSourceCount++] = brightness;
+        }
+    }
+
     private class RelightSkyEntry implements Comparable {
         public final int x;
         public final int z;
         public final byte[] mask;
         public final boolean[] fix;
         public boolean smooth;
+        public Object sections;
+        public SkyPartition partition;
+        /**
+         * Every section from this y up has full sky light (see fillOpenSky)
+         */
+        public int openSky = 256;
 
         public RelightSkyEntry(int x, int z, boolean[] fix) {
             this.x = x;
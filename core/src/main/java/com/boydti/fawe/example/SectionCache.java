@@ -0,0 +1,149 @@
+package com.boydti.fawe.example;
+
+import com.boydti.fawe.util.MathMan;
+import java.util.Arrays;
+
+/**
+ * A small cache of the chunks (and their sections) recently read by a queue<br>
+ *     - One per thread (shared by every queue), so it isn't synchronized<br>
+ *     - Fixed size, so there is no allocation after it is created<br>
+ *     - The least recently used chunk is replaced<br>
+ *     - Cleared when another queue uses it<br>
+ *     - Each chunk is cached with its version, so the queue can tell when it has been placed since
+ */
+public class SectionCache {
+
+    private static final int SIZE = 8;
+
+    private final long[] keys = new long[SIZE];
+    private final Object[] chunks = new Object[SIZE];
+    private final Object[][] sections = new Object[SIZE][16];
+    private final int[] resolved = new int[SIZE];
+    private final int[] versions = new int[SIZE];
+    private final long[] used = new long[SIZE];
+    private int size;
+    private int last = -1;
+    private long clock;
+    private long owner;
+
+    /**
+     * Clear the cache if it was used by another queue
+     * @param owner The id of the queue using it
+     */
+    public void setOwner(long owner) {
+        if (this.owner != owner) {
+            this.owner = owner;
+            clear();
+        }
+    }
+
+    /**
+     * Clear the cache if it's used by a queue (so it doesn't keep that queue's sections)
+     * @param owner The id of the queue
+     */
+    public void release(long owner) {
+        if (this.owner == owner) {
+            this.owner = 0;
+            clear();
+        }
+    }
+
+    /**
+     * Find a cached chunk
+     * @param cx
+     * @param cz
+     * @return The slot, or -1
+     */
+    public int indexOf(int cx, int cz) {
+        long key = MathMan.pairInt(cx, cz);
+        if (last != -1 && keys[last] == key) {
+            return last;
+        }
+        for (int i = 0; i < size; i++) {
+            if (keys[i] == key) {
+                used[i] = ++clock;
+                return last = i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Cache a chunk (replacing an outdated entry for it, or the least recently used one if full)
+     * @param cx
+     * @param cz
+     * @param chunk
+     * @param version
+     * @return The slot
+     */
+    public int put(int cx, int cz, Object chunk, int version) {
+        long key = MathMan.pairInt(cx, cz);
+        int index = -1;
+        for (int i = 0; i < size; i++) {
+            if (keys[i] == key) {
+                index = i;
+                break;
+            }
+        }
+        if (index == -1) {
+            if (size < SIZE) {
+                index = size++;
+            } else {
+                index = 0;
+                for (int i = 1; i < SIZE; i++) {
+                    if (used[i] < used[index]) {
+                        index = i;
+                    }
+                }
+            }
+        }
+        Arrays.fill(sections[index], null);
+        keys[index] = key;
+        chunks[index] = chunk;
+        versions[index] = version;
+        resolved[index] = 0;
+        used[index] = ++clock;
+        return last = index;
+    }
+
+    public Object getChunk(int index) {
+        return chunks[index];
+    }
+
+    /**
+     * The version of the chunk when it was cached
+     * @param index
+     * @return
+     */
+    public int getVersion(int index) {
+        return versions[index];
+    }
+
+    /**
+     * If a section of a cached chunk has been cached
+     * @param index
+     * @param cy
+     * @return
+     */
+    public boolean hasSection(int index, int cy) {
+        return (resolved[index] & (1 << cy)) != 0;
+    }
+
+    public Object getSection(int index, int cy) {
+        return sections[index][cy];
+    }
+
+    public void setSection(int index, int cy, Object section) {
+        sections[index][cy] = section;
+        resolved[index] |= 1 << cy;
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            chunks[i] = null;
+            Arrays.fill(sections[i], null);
+        }
+        size = 0;
+        last = -1;
+    }
+}
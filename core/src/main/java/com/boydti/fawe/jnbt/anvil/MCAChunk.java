@@ -0,0 +1,218 @@
+package com.boydti.fawe.jnbt.anvil;
+
+import com.boydti.fawe.example.MemoryChunk;
+import com.sk89q.jnbt.ByteArrayTag;
+import com.sk89q.jnbt.ByteTag;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.IntArrayTag;
+import com.sk89q.jnbt.IntTag;
+import com.sk89q.jnbt.ListTag;
+import com.sk89q.jnbt.Tag;
+import com.sk89q.worldedit.blocks.BlockMaterial;
+import com.sk89q.worldedit.world.registry.BundledBlockData;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A chunk decoded from a region file<br>
+ *     - Blocks, light, biomes and tiles are decoded, everything else in the chunk tag (entities, ticks etc.) is kept as is<br>
+ *     - When encoded, the height map is recalculated and the chunk is marked to be relit by the server
+ */
+public class MCAChunk extends MemoryChunk {
+
+    private static boolean[] OPAQUE;
+
+    private final Map<String, Tag> root;
+    private final Map<String, Tag> level;
+    private volatile boolean modified;
+
+    /**
+     * Decode a chunk
+     * @param x
+     * @param z
+     * @param sky If the chunk has sky light
+     * @param tag The root tag of the chunk
+     */
+    public MCAChunk(int x, int z, boolean sky, CompoundTag tag) {
+        super(x, z, sky);
+        this.root = new HashMap<>(tag.getValue());
+        Tag levelTag = root.get("Level");
+        this.level = levelTag instanceof CompoundTag ? new HashMap<>(((CompoundTag) levelTag).getValue()) : new HashMap<String, Tag>();
+        Tag sectionsTag = level.get("Sections");
+        if (sectionsTag instanceof ListTag) {
+            for (Tag sectionTag : ((ListTag) sectionsTag).getValue()) {
+                readSection(((CompoundTag) sectionTag).getValue());
+            }
+        }
+        Tag biomesTag = level.get("Biomes");
+        if (biomesTag instanceof ByteArrayTag) {
+            byte[] array = ((ByteArrayTag) biomesTag).getValue();
+            System.arraycopy(array, 0, biomes, 0, Math.min(array.length, biomes.length));
+        }
+        Tag tilesTag = level.get("TileEntities");
+        if (tilesTag instanceof ListTag) {
+            for (Tag tileTag : ((ListTag) tilesTag).getValue()) {
+                CompoundTag tile = (CompoundTag) tileTag;
+                int y = tile.getInt("y");
+                if (y < 0 || y > 255) {
+                    continue;
+                }
+                tiles.put(getIndex(tile.getInt("x") & 15, y, tile.getInt("z") & 15), tile);
+            }
+        }
+    }
+
+    private void readSection(Map<String, Tag> map) {
+        int layer = ((ByteTag) map.get("Y")).getValue();
+        if (layer < 0 || layer > 15) {
+            return;
+        }
+        Section section = getOrCreateSection(layer);
+        byte[] blocks = getByteArray(map, "Blocks");
+        byte[] add = getByteArray(map, "Add");
+        byte[] data = getByteArray(map, "Data");
+        char[] ids = section.ids;
+        if (blocks != null) {
+            for (int i = 0; i < 4096; i++) {
+                int id = blocks[i] & 0xFF;
+                if (add != null) {
+                    id += ((add[i >> 1] >> ((i & 1) << 2)) & 15) << 8;
+                }
+                int meta = data == null ? 0 : (data[i >> 1] >> ((i & 1) << 2)) & 15;
+                ids[i] = (char) ((id << 4) + meta);
+            }
+        }
+        byte[] blockLight = getByteArray(map, "BlockLight");
+        if (blockLight != null) {
+            System.arraycopy(blockLight, 0, section.blockLight, 0, 2048);
+        }
+        byte[] skyLight = getByteArray(map, "SkyLight");
+        if (skyLight != null && section.skyLight != null) {
+            System.arraycopy(skyLight, 0, section.skyLight, 0, 2048);
+        }
+    }
+
+    private static byte[] getByteArray(Map<String, Tag> map, String key) {
+        Tag tag = map.get(key);
+        return tag instanceof ByteArrayTag ? ((ByteArrayTag) tag).getValue() : null;
+    }
+
+    public boolean isModified() {
+        return modified;
+    }
+
+    public void setModified() {
+        this.modified = true;
+    }
+
+    /**
+     * Encode this chunk
+     * @return The root tag
+     */
+    public CompoundTag toTag() {
+        List<Tag> sectionList = new ArrayList<>();
+        for (int layer = 0; layer < 16; layer++) {
+            Section section = sections[layer];
+            if (section != null) {
+                sectionList.add(writeSection(layer, section));
+            }
+        }
+        List<Tag> tileList = new ArrayList<>(tiles.size());
+        int bx = getX() << 4;
+        int bz = getZ() << 4;
+        for (Map.Entry<Integer, CompoundTag> entry : tiles.entrySet()) {
+            int index = entry.getKey();
+            Map<String, Tag> tile = new HashMap<>(entry.getValue().getValue());
+            tile.put("x", new IntTag(bx + (index & 15)));
+            tile.put("y", new IntTag(index >> 8));
+            tile.put("z", new IntTag(bz + ((index >> 4) & 15)));
+            tileList.add(new CompoundTag(tile));
+        }
+        Map<String, Tag> newLevel = new HashMap<>(level);
+        newLevel.put("xPos", new IntTag(getX()));
+        newLevel.put("zPos", new IntTag(getZ()));
+        newLevel.put("Sections", new ListTag(CompoundTag.class, sectionList));
+        newLevel.put("Biomes", new ByteArrayTag(biomes.clone()));
+        newLevel.put("TileEntities", new ListTag(CompoundTag.class, tileList));
+        newLevel.put("HeightMap", new IntArrayTag(getHeightMap()));
+        // The server relights the chunk when it's loaded
+        newLevel.put("LightPopulated", new ByteTag((byte) 0));
+        Map<String, Tag> newRoot = new HashMap<>(root);
+        newRoot.put("Level", new CompoundTag(newLevel));
+        return new CompoundTag(newRoot);
+    }
+
+    private CompoundTag writeSection(int layer, Section section) {
+        byte[] blocks = new byte[4096];
+        byte[] data = new byte[2048];
+        byte[] add = null;
+        char[] ids = section.ids;
+        for (int i = 0; i < 4096; i++) {
+            int combined = ids[i];
+            int id = combined >> 4;
+            blocks[i] = (byte) id;
+            data[i >> 1] |= (combined & 15) << ((i & 1) << 2);
+            if (id > 255) {
+                if (add == null) {
+                    add = new byte[2048];
+                }
+                add[i >> 1] |= (id >> 8) << ((i & 1) << 2);
+            }
+        }
+        Map<String, Tag> map = new HashMap<>();
+        map.put("Y", new ByteTag((byte) layer));
+        map.put("Blocks", new ByteArrayTag(blocks));
+        map.put("Data", new ByteArrayTag(data));
+        if (add != null) {
+            map.put("Add", new ByteArrayTag(add));
+        }
+        map.put("BlockLight", new ByteArrayTag(section.blockLight.clone()));
+        map.put("SkyLight", new ByteArrayTag(section.skyLight != null ? section.skyLight.clone() : new byte[2048]));
+        return new CompoundTag(map);
+    }
+
+    /**
+     * Calculate the height map (for each column, one above the highest block which blocks light)
+     * @return int[256] (index = z << 4 | x)
+     */
+    public int[] getHeightMap() {
+        boolean[] opaque = getOpaque();
+        int[] heightMap = new int[256];
+        for (int z = 0; z < 16; z++) {
+            for (int x = 0; x < 16; x++) {
+                int height = 0;
+                for (int layer = 15; layer >= 0 && height == 0; layer--) {
+                    Section section = sections[layer];
+                    if (section == null) {
+                        continue;
+                    }
+                    char[] ids = section.ids;
+                    for (int y = 15; y >= 0; y--) {
+                        if (opaque[ids[(y << 8) | (z << 4) | x] >> 4]) {
+                            height = (layer << 4) + y + 1;
+                            break;
+                        }
+                    }
+                }
+                heightMap[(z << 4) | x] = height;
+            }
+        }
+        return heightMap;
+    }
+
+    private static boolean[] getOpaque() {
+        boolean[] opaque = OPAQUE;
+        if (opaque == null) {
+            opaque = new boolean[4096];
+            BundledBlockData data = BundledBlockData.getInstance();
+            for (int id = 1; id < opaque.length; id++) {
+                BlockMaterial material = data.getMaterialById(id);
+                opaque[id] = material == null || material.getLightOpacity() != 0;
+            }
+            OPAQUE = opaque;
+        }
+        return opaque;
+    }
+}
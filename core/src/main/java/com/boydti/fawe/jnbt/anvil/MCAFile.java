@@ -0,0 +1,306 @@
+package com.boydti.fawe.jnbt.anvil;
+
+import com.boydti.fawe.object.RunnableVal;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.NBTInputStream;
+import com.sk89q.jnbt.NBTOutputStream;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * An Anvil region file (r.x.z.mca), holding 32x32 chunks<br>
+ *     - The header has the offset (in 4096 byte sectors) and length of each chunk, then the time it was saved<br>
+ *     - Each chunk is a length, the compression type (1 = gzip, 2 = zlib) and the compressed NBT<br>
+ *     - Written chunks are kept until {@link #save()}, which rewrites the file (compacting it)
+ */
+public class MCAFile {
+
+    private static final int SECTOR = 4096;
+    private static final int COMPRESSION_GZIP = 1;
+    private static final int COMPRESSION_ZLIB = 2;
+
+    private final File file;
+    private final int x;
+    private final int z;
+    private final byte[] locations = new byte[SECTOR];
+    private final byte[] timestamps = new byte[SECTOR];
+    /**
+     * Chunks written since the file was saved (zlib compressed, or null if deleted)
+     */
+    private final HashMap<Integer, byte[]> written = new HashMap<>();
+    private RandomAccessFile raf;
+
+    /**
+     * @param file The region file (which doesn't need to exist)
+     * @param x The region x
+     * @param z The region z
+     * @throws IOException
+     */
+    public MCAFile(File file, int x, int z) throws IOException {
+        this.file = file;
+        this.x = x;
+        this.z = z;
+        if (file.exists() && file.length() >= SECTOR * 2) {
+            raf = new RandomAccessFile(file, "r");
+            raf.readFully(locations);
+            raf.readFully(timestamps);
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getZ() {
+        return z;
+    }
+
+    private static int getIndex(int cx, int cz) {
+        return (cx & 31) + ((cz & 31) << 5);
+    }
+
+    private int getOffset(int index) {
+        int i = index << 2;
+        return ((locations[i] & 0xFF) << 16) + ((locations[i + 1] & 0xFF) << 8) + (locations[i + 2] & 0xFF);
+    }
+
+    /**
+     * If a chunk exists (i.e. it has been generated)
+     * @param cx
+     * @param cz
+     * @return
+     */
+    public synchronized boolean hasChunk(int cx, int cz) {
+        int index = getIndex(cx, cz);
+        if (written.containsKey(index)) {
+            return written.get(index) != null;
+        }
+        return raf != null && getOffset(index) != 0;
+    }
+
+    /**
+     * Read and decode a chunk
+     * @param cx
+     * @param cz
+     * @param sky If the chunk has sky light
+     * @return The chunk, or null if it doesn't exist
+     * @throws IOException
+     */
+    public MCAChunk readChunk(int cx, int cz, boolean sky) throws IOException {
+        CompoundTag tag = readChunkTag(cx, cz);
+        return tag == null ? null : new MCAChunk(cx, cz, sky, tag);
+    }
+
+    /**
+     * Read and decode every chunk in this file, in order
+     * @param sky If the chunks have sky light
+     * @param onEach Called for each chunk
+     * @throws IOException
+     */
+    public void forEachChunk(boolean sky, RunnableVal<MCAChunk> onEach) throws IOException {
+        int bx = x << 5;
+        int bz = z << 5;
+        for (int index = 0; index < 1024; index++) {
+            MCAChunk chunk = readChunk(bx + (index & 31), bz + (index >> 5), sky);
+            if (chunk != null) {
+                onEach.run(chunk);
+            }
+        }
+    }
+
+    /**
+     * Read the NBT of a chunk
+     * @param cx
+     * @param cz
+     * @return The root tag, or null if the chunk doesn't exist
+     * @throws IOException
+     */
+    public CompoundTag readChunkTag(int cx, int cz) throws IOException {
+        int type;
+        byte[] data;
+        synchronized (this) {
+            int index = getIndex(cx, cz);
+            if (written.containsKey(index)) {
+                data = written.get(index);
+                type = COMPRESSION_ZLIB;
+            } else {
+                if (raf == null || getOffset(index) == 0) {
+                    return null;
+                }
+                raf.seek((long) getOffset(index) * SECTOR);
+                int length = raf.readInt();
+                if (length <= 1) {
+                    return null;
+                }
+                type = raf.readByte();
+                data = new byte[length - 1];
+                raf.readFully(data);
+            }
+        }
+        if (data == null) {
+            return null;
+        }
+        InputStream is = new ByteArrayInputStream(data);
+        switch (type) {
+            case COMPRESSION_GZIP:
+                is = new GZIPInputStream(is);
+                break;
+            case COMPRESSION_ZLIB:
+                is = new InflaterInputStream(is);
+                break;
+            default:
+                throw new IOException("Unknown compression type " + type + " for chunk " + cx + "," + cz + " in " + file);
+        }
+        try (NBTInputStream nis = new NBTInputStream(new BufferedInputStream(is))) {
+            return (CompoundTag) nis.readNamedTag().getTag();
+        }
+    }
+
+    /**
+     * Encode and write a chunk (it's saved to disk with {@link #save()})
+     * @param chunk
+     * @throws IOException
+     */
+    public void writeChunk(MCAChunk chunk) throws IOException {
+        writeChunkTag(chunk.getX(), chunk.getZ(), chunk.toTag());
+    }
+
+    public void writeChunkTag(int cx, int cz, CompoundTag tag) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(SECTOR * 4);
+        try (NBTOutputStream nos = new NBTOutputStream(new BufferedOutputStream(new DeflaterOutputStream(baos)))) {
+            nos.writeNamedTag("", tag);
+        }
+        byte[] data = baos.toByteArray();
+        synchronized (this) {
+            written.put(getIndex(cx, cz), data);
+        }
+    }
+
+    /**
+     * Remove a chunk (so the server generates it again)
+     * @param cx
+     * @param cz
+     */
+    public synchronized void deleteChunk(int cx, int cz) {
+        written.put(getIndex(cx, cz), null);
+    }
+
+    public synchronized boolean isModified() {
+        return !written.isEmpty();
+    }
+
+    /**
+     * Write the changed chunks to disk<br>
+     *     - The file is written to a temporary file first, then moved over the region file<br>
+     *     - The server must not have the region file open, or its own writes would go to the replaced file
+     * @throws IOException
+     */
+    public synchronized void save() throws IOException {
+        if (written.isEmpty()) {
+            return;
+        }
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        byte[] newLocations = new byte[SECTOR];
+        byte[] newTimestamps = new byte[SECTOR];
+        int now = (int) (System.currentTimeMillis() / 1000);
+        byte[] padding = new byte[SECTOR];
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tmp), SECTOR * 16)) {
+            out.write(newLocations);
+            out.write(newTimestamps);
+            int sector = 2;
+            for (int index = 0; index < 1024; index++) {
+                int type;
+                byte[] data;
+                int time;
+                if (written.containsKey(index)) {
+                    data = written.get(index);
+                    type = COMPRESSION_ZLIB;
+                    time = now;
+                } else {
+                    int offset = raf == null ? 0 : getOffset(index);
+                    if (offset == 0) {
+                        continue;
+                    }
+                    raf.seek((long) offset * SECTOR);
+                    int length = raf.readInt();
+                    if (length <= 1) {
+                        continue;
+                    }
+                    type = raf.readByte();
+                    data = new byte[length - 1];
+                    raf.readFully(data);
+                    int i = index << 2;
+                    time = ((timestamps[i] & 0xFF) << 24) + ((timestamps[i + 1] & 0xFF) << 16) + ((timestamps[i + 2] & 0xFF) << 8) + (timestamps[i + 3] & 0xFF);
+                }
+                if (data == null) {
+                    continue;
+                }
+                int size = data.length + 5;
+                int sectors = (size + SECTOR - 1) / SECTOR;
+                if (sectors > 255) {
+                    throw new IOException("Chunk " + index + " in " + file + " is too large (" + size + " bytes)");
+                }
+                out.write((data.length + 1) >>> 24);
+                out.write((data.length + 1) >>> 16);
+                out.write((data.length + 1) >>> 8);
+                out.write(data.length + 1);
+                out.write(type);
+                out.write(data);
+                out.write(padding, 0, sectors * SECTOR - size);
+                int i = index << 2;
+                newLocations[i] = (byte) (sector >> 16);
+                newLocations[i + 1] = (byte) (sector >> 8);
+                newLocations[i + 2] = (byte) sector;
+                newLocations[i + 3] = (byte) sectors;
+                newTimestamps[i] = (byte) (time >> 24);
+                newTimestamps[i + 1] = (byte) (time >> 16);
+                newTimestamps[i + 2] = (byte) (time >> 8);
+                newTimestamps[i + 3] = (byte) time;
+                sector += sectors;
+            }
+        }
+        // Write the header
+        try (RandomAccessFile header = new RandomAccessFile(tmp, "rw")) {
+            header.write(newLocations);
+            header.write(newTimestamps);
+        }
+        close();
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        System.arraycopy(newLocations, 0, locations, 0, SECTOR);
+        System.arraycopy(newTimestamps, 0, timestamps, 0, SECTOR);
+        written.clear();
+        raf = new RandomAccessFile(file, "r");
+    }
+
+    /**
+     * Close the file (without saving)
+     */
+    public synchronized void close() throws IOException {
+        if (raf != null) {
+            raf.close();
+            raf = null;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.boydti.fawe.jnbt.anvil;
+
+/**
+ * Something done to each chunk of a world, see {@link MCAScanner}<br>
+ *     - Regions are scanned in parallel, so applyChunk must be thread safe<br>
+ *     - The chunks are read only (changes aren't saved)
+ * @param <T> The result
+ */
+public abstract class MCAFilter<T> {
+
+    /**
+     * If a region should be scanned (e.g. to only scan part of a world)
+     * @param rx
+     * @param rz
+     * @return
+     */
+    public boolean appliesFile(int rx, int rz) {
+        return true;
+    }
+
+    /**
+     * Called for each chunk (which has been generated)
+     * @param chunk
+     */
+    public abstract void applyChunk(MCAChunk chunk);
+
+    /**
+     * @return The result (once the scan is done)
+     */
+    public abstract T get();
+}
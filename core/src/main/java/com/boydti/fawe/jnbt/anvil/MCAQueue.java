@@ -0,0 +1,180 @@
+package com.boydti.fawe.jnbt.anvil;
+
+import com.boydti.fawe.Fawe;
+import com.boydti.fawe.example.CharFaweChunk;
+import com.boydti.fawe.example.MemoryChunk;
+import com.boydti.fawe.example.MemoryFaweQueue;
+import com.boydti.fawe.object.FaweChunk;
+import com.boydti.fawe.object.RunnableVal;
+import com.boydti.fawe.object.RunnableVal2;
+import com.boydti.fawe.util.MainUtil;
+import com.boydti.fawe.util.MathMan;
+import com.boydti.fawe.util.SetQueue;
+import com.boydti.fawe.util.TaskManager;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.world.World;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * A queue which edits the region (.mca) files of a world directly, for worlds which aren't loaded by the server<br>
+ *     - Chunks are read from and written to the region files in the save folder<br>
+ *     - Regions are placed in parallel (each on a worker thread), then saved<br>
+ *     - Chunks which haven't been generated are skipped<br>
+ *     - Lighting is left to the server (chunks are marked to be relit when loaded)<br>
+ *     - The world must not be loaded: the server keeps its region files open, and would lose or overwrite the edits
+ */
+public class MCAQueue extends MemoryFaweQueue {
+
+    private final MCAWorld world;
+
+    /**
+     * @param world The world, which must not be loaded by the server
+     * @throws IllegalStateException If the world is loaded
+     */
+    public MCAQueue(MCAWorld world) {
+        super(world);
+        checkUnloaded(world);
+        this.world = world;
+    }
+
+    /**
+     * @param world The world name (the world must not be loaded by the server)
+     * @param saveFolder The region folder
+     * @param sky If the world has sky light
+     * @throws IllegalStateException If the world is loaded
+     */
+    public MCAQueue(String world, File saveFolder, boolean sky) {
+        this(new MCAWorld(world, saveFolder, sky));
+    }
+
+    /**
+     * Check that the server doesn't have the world loaded (so its region files aren't open)
+     * @param world
+     */
+    private static void checkUnloaded(MCAWorld world) {
+        if (Fawe.get() == null || world.getFolder() == null) {
+            return;
+        }
+        for (World loaded : WorldEdit.getInstance().getServer().getWorlds()) {
+            String name = Fawe.imp().getWorldName(loaded);
+            if (!name.equals(world.getName())) {
+                continue;
+            }
+            File folder = SetQueue.IMP.getNewQueue(name, true, false).getSaveFolder();
+            if (folder == null || folder.toPath().toAbsolutePath().normalize().equals(world.getFolder().toPath().toAbsolutePath().normalize())) {
+                throw new IllegalStateException("The world " + name + " is loaded (unload it before editing its region files)");
+            }
+        }
+    }
+
+    @Override
+    public File getSaveFolder() {
+        return world.getFolder();
+    }
+
+    /**
+     * The server relights the edited chunks when they're loaded
+     * @return 0
+     */
+    @Override
+    public int getLightingMode() {
+        return 0;
+    }
+
+    @Override
+    public void setChangeTask(final RunnableVal2<FaweChunk, FaweChunk> changeTask) {
+        if (changeTask == null) {
+            super.setChangeTask(null);
+            return;
+        }
+        // Regions are placed in parallel
+        super.setChangeTask(new RunnableVal2<FaweChunk, FaweChunk>() {
+            @Override
+            public void run(FaweChunk before, FaweChunk after) {
+                synchronized (changeTask) {
+                    changeTask.run(before, after);
+                }
+            }
+        });
+    }
+
+    @Override
+    public boolean setComponents(FaweChunk fc, RunnableVal<FaweChunk> changeTask) {
+        MemoryChunk chunk = world.getChunk(fc.getX(), fc.getZ(), false);
+        if (chunk == null) {
+            return false;
+        }
+        if (!super.setComponents(fc, changeTask)) {
+            return false;
+        }
+        ((MCAChunk) chunk).setModified();
+        return true;
+    }
+
+    /**
+     * Place every queued chunk, one worker thread per region, then save the region files<br>
+     *     - Unlike next(), chunks are placed in parallel (there is no lighting or chunk sending, and each region has its own file)
+     */
+    @Override
+    public void flush(int time) {
+        final Map<Long, List<FaweChunk>> regions = new HashMap<>();
+        FaweChunk chunk;
+        while ((chunk = chunks.poll()) != null) {
+            // Only unmap it if it wasn't replaced (setChunk) in the meantime
+            blocks.remove(chunk.longHash(), chunk);
+            if (chunk instanceof CharFaweChunk) {
+                ((CharFaweChunk) chunk).restore();
+            }
+            long pair = MathMan.pairInt(chunk.getX() >> 5, chunk.getZ() >> 5);
+            List<FaweChunk> region = regions.get(pair);
+            if (region == null) {
+                region = new ArrayList<>();
+                regions.put(pair, region);
+            }
+            region.add(chunk);
+        }
+        if (!regions.isEmpty()) {
+            boolean shared = TaskManager.IMP != null;
+            ForkJoinPool pool = shared ? TaskManager.IMP.getBackgroundForkJoinPool() : new ForkJoinPool();
+            try {
+                ArrayList<ForkJoinTask<?>> tasks = new ArrayList<>(regions.size());
+                for (final Map.Entry<Long, List<FaweChunk>> entry : regions.entrySet()) {
+                    tasks.add(pool.submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            for (FaweChunk chunk : entry.getValue()) {
+                                execute(chunk);
+                            }
+                            try {
+                                long pair = entry.getKey();
+                                world.saveRegion(MathMan.unpairIntX(pair), MathMan.unpairIntY(pair));
+                            } catch (Throwable e) {
+                                MainUtil.handleError(e);
+                            }
+                        }
+                    }));
+                }
+                for (ForkJoinTask<?> task : tasks) {
+                    task.join();
+                }
+            } finally {
+                if (!shared) {
+                    pool.shutdown();
+                }
+            }
+        }
+        try {
+            // Anything set directly on the world
+            world.save();
+        } catch (Throwable e) {
+            MainUtil.handleError(e);
+        }
+        runTasks();
+    }
+}
@@ -0,0 +1,105 @@
+package com.boydti.fawe.jnbt.anvil;
+
+import com.boydti.fawe.object.FaweQueue;
+import com.boydti.fawe.object.RunnableVal;
+import com.boydti.fawe.util.MainUtil;
+import com.boydti.fawe.util.TaskManager;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Scan every region file of a world, without loading any chunks on the server<br>
+ *     - Each region is read (and decompressed) on a worker thread<br>
+ *     - Chunks saved by the server since the scan started may or may not be seen
+ */
+public class MCAScanner {
+
+    private static final Pattern REGION = Pattern.compile("r\\.(-?\\d+)\\.(-?\\d+)\\.mca");
+
+    /**
+     * Scan the region files of a world
+     * @param queue A queue for the world (for the save folder)
+     * @param filter
+     * @param <T>
+     * @return The result of the filter
+     */
+    public static <T> T scan(FaweQueue queue, MCAFilter<T> filter) {
+        File folder = queue.getSaveFolder();
+        if (folder == null) {
+            throw new IllegalArgumentException("The world " + queue.getWorldName() + " has no region folder");
+        }
+        return scan(folder, queue.hasSky(), filter);
+    }
+
+    /**
+     * Scan the region files in a folder
+     * @param folder The region folder
+     * @param sky If the world has sky light
+     * @param filter
+     * @param <T>
+     * @return The result of the filter
+     */
+    public static <T> T scan(File folder, final boolean sky, final MCAFilter<T> filter) {
+        File[] files = folder.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return REGION.matcher(name).matches();
+            }
+        });
+        if (files == null || files.length == 0) {
+            return filter.get();
+        }
+        boolean shared = TaskManager.IMP != null;
+        ForkJoinPool pool = shared ? TaskManager.IMP.getBackgroundForkJoinPool() : new ForkJoinPool();
+        try {
+            ArrayList<ForkJoinTask<?>> tasks = new ArrayList<>(files.length);
+            for (final File file : files) {
+                Matcher matcher = REGION.matcher(file.getName());
+                matcher.matches();
+                final int rx = Integer.parseInt(matcher.group(1));
+                final int rz = Integer.parseInt(matcher.group(2));
+                if (!filter.appliesFile(rx, rz)) {
+                    continue;
+                }
+                tasks.add(pool.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        MCAFile mca = null;
+                        try {
+                            mca = new MCAFile(file, rx, rz);
+                            mca.forEachChunk(sky, new RunnableVal<MCAChunk>() {
+                                @Override
+                                public void run(MCAChunk chunk) {
+                                    filter.applyChunk(chunk);
+                                }
+                            });
+                        } catch (Throwable e) {
+                            MainUtil.handleError(e);
+                        } finally {
+                            if (mca != null) {
+                                try {
+                                    mca.close();
+                                } catch (Throwable e) {
+                                    MainUtil.handleError(e);
+                                }
+                            }
+                        }
+                    }
+                }));
+            }
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+        } finally {
+            if (!shared) {
+                pool.shutdown();
+            }
+        }
+        return filter.get();
+    }
+}
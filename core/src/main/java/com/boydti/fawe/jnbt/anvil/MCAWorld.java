@@ -0,0 +1,205 @@
+package com.boydti.fawe.jnbt.anvil;
+
+import com.boydti.fawe.example.MemoryChunk;
+import com.boydti.fawe.util.MainUtil;
+import com.boydti.fawe.util.MathMan;
+import com.boydti.fawe.wrappers.MemoryWorld;
+import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.Vector2D;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.blocks.BaseBlock;
+import com.sk89q.worldedit.world.biome.BaseBiome;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A world backed by the region files in a folder (the world must not be loaded by the server, as its region files would be open)<br>
+ *     - Chunks are read from the region files when first accessed<br>
+ *     - Chunks which haven't been generated can't be edited<br>
+ *     - Changes are written back with {@link #save()} or {@link #saveRegion(int, int)}
+ */
+public class MCAWorld extends MemoryWorld {
+
+    private final File folder;
+    private final ConcurrentHashMap<Long, MCAFile> files = new ConcurrentHashMap<>();
+
+    /**
+     * @param name The world name
+     * @param folder The region folder
+     * @param sky If the world has sky light
+     */
+    public MCAWorld(String name, File folder, boolean sky) {
+        super(name, sky);
+        this.folder = folder;
+    }
+
+    public File getFolder() {
+        return folder;
+    }
+
+    @Override
+    public MCAQueue newQueue() {
+        return new MCAQueue(this);
+    }
+
+    /**
+     * Get the region file for a region
+     * @param rx
+     * @param rz
+     * @return
+     * @throws IOException
+     */
+    public MCAFile getFile(int rx, int rz) throws IOException {
+        long pair = MathMan.pairInt(rx, rz);
+        MCAFile file = files.get(pair);
+        if (file == null) {
+            file = new MCAFile(new File(folder, "r." + rx + "." + rz + ".mca"), rx, rz);
+            MCAFile previous = files.putIfAbsent(pair, file);
+            if (previous != null) {
+                file.close();
+                file = previous;
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Get a chunk (reading it from the region file if it isn't cached)
+     * @param cx
+     * @param cz
+     * @param create Ignored: chunks are only generated by the server
+     * @return The chunk, or null if it hasn't been generated
+     */
+    @Override
+    public MemoryChunk getChunk(int cx, int cz, boolean create) {
+        long pair = MathMan.pairInt(cx, cz);
+        MemoryChunk chunk = chunks.get(pair);
+        if (chunk != null) {
+            return chunk;
+        }
+        try {
+            MCAFile file = getFile(cx >> 5, cz >> 5);
+            synchronized (file) {
+                chunk = chunks.get(pair);
+                if (chunk == null) {
+                    chunk = file.readChunk(cx, cz, hasSky());
+                    if (chunk != null) {
+                        chunks.put(pair, chunk);
+                    }
+                }
+            }
+            return chunk;
+        } catch (Throwable e) {
+            MainUtil.handleError(e);
+            return null;
+        }
+    }
+
+    @Override
+    public boolean setBlock(Vector position, BaseBlock block, boolean notifyAndLight) throws WorldEditException {
+        int x = position.getBlockX();
+        int z = position.getBlockZ();
+        MemoryChunk chunk = getChunk(x >> 4, z >> 4, false);
+        if (chunk == null || !super.setBlock(position, block, notifyAndLight)) {
+            return false;
+        }
+        ((MCAChunk) chunk).setModified();
+        return true;
+    }
+
+    @Override
+    public boolean setBiome(Vector2D position, BaseBiome biome) {
+        int x = position.getBlockX();
+        int z = position.getBlockZ();
+        MemoryChunk chunk = getChunk(x >> 4, z >> 4, false);
+        if (chunk == null) {
+            return false;
+        }
+        super.setBiome(position, biome);
+        ((MCAChunk) chunk).setModified();
+        return true;
+    }
+
+    /**
+     * Remove a chunk from the region file, so the server generates it again
+     * @param cx
+     * @param cz
+     */
+    @Override
+    public void removeChunk(int cx, int cz) {
+        try {
+            MCAFile file = getFile(cx >> 5, cz >> 5);
+            synchronized (file) {
+                super.removeChunk(cx, cz);
+                file.deleteChunk(cx, cz);
+            }
+        } catch (Throwable e) {
+            MainUtil.handleError(e);
+        }
+    }
+
+    /**
+     * Write the modified chunks of a region to its file, and remove the region's chunks from memory
+     * @param rx
+     * @param rz
+     * @throws IOException
+     */
+    public void saveRegion(int rx, int rz) throws IOException {
+        MCAFile file = getFile(rx, rz);
+        synchronized (file) {
+            Iterator<Map.Entry<Long, MemoryChunk>> iterator = chunks.entrySet().iterator();
+            while (iterator.hasNext()) {
+                MemoryChunk chunk = iterator.next().getValue();
+                if (chunk.getX() >> 5 != rx || chunk.getZ() >> 5 != rz) {
+                    continue;
+                }
+                if (((MCAChunk) chunk).isModified()) {
+                    file.writeChunk((MCAChunk) chunk);
+                }
+                iterator.remove();
+            }
+            file.save();
+        }
+    }
+
+    /**
+     * Write every modified chunk to disk, and remove the chunks from memory
+     * @throws IOException
+     */
+    public void save() throws IOException {
+        ArrayList<Long> regions = new ArrayList<>();
+        for (MemoryChunk chunk : chunks.values()) {
+            long pair = MathMan.pairInt(chunk.getX() >> 5, chunk.getZ() >> 5);
+            if (!regions.contains(pair)) {
+                regions.add(pair);
+            }
+        }
+        for (Map.Entry<Long, MCAFile> entry : files.entrySet()) {
+            if (entry.getValue().isModified() && !regions.contains(entry.getKey())) {
+                regions.add(entry.getKey());
+            }
+        }
+        for (long pair : regions) {
+            saveRegion(MathMan.unpairIntX(pair), MathMan.unpairIntY(pair));
+        }
+    }
+
+    /**
+     * Close the region files (without saving)
+     */
+    public void close() {
+        for (MCAFile file : files.values()) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                MainUtil.handleError(e);
+            }
+        }
+        files.clear();
+        clear();
+    }
+}
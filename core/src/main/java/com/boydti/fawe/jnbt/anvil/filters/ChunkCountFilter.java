@@ -0,0 +1,50 @@
+package com.boydti.fawe.jnbt.anvil.filters;
+
+import com.boydti.fawe.example.MemoryChunk;
+import com.boydti.fawe.jnbt.anvil.MCAChunk;
+import com.boydti.fawe.jnbt.anvil.MCAFilter;
+import com.boydti.fawe.util.MathMan;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Find the chunks containing some blocks, and how many of those blocks each has (a heat map)<br>
+ *     - The result maps the chunk (see {@link MathMan#pairInt(int, int)}) to the count<br>
+ *     - Chunks without any of the blocks aren't included
+ */
+public class ChunkCountFilter extends MCAFilter<Map<Long, Integer>> {
+
+    private final boolean[] matches;
+    private final ConcurrentHashMap<Long, Integer> result = new ConcurrentHashMap<>();
+
+    /**
+     * @param matches Which combined ids (id << 4 + data) to count (length 65536)
+     */
+    public ChunkCountFilter(boolean[] matches) {
+        this.matches = matches;
+    }
+
+    @Override
+    public void applyChunk(MCAChunk chunk) {
+        boolean[] matches = this.matches;
+        int count = 0;
+        for (MemoryChunk.Section section : chunk.sections) {
+            if (section == null) {
+                continue;
+            }
+            for (char combined : section.ids) {
+                if (matches[combined]) {
+                    count++;
+                }
+            }
+        }
+        if (count != 0) {
+            result.put(MathMan.pairInt(chunk.getX(), chunk.getZ()), count);
+        }
+    }
+
+    @Override
+    public Map<Long, Integer> get() {
+        return result;
+    }
+}
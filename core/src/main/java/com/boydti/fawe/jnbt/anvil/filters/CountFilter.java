@@ -0,0 +1,52 @@
+package com.boydti.fawe.jnbt.anvil.filters;
+
+import com.boydti.fawe.example.MemoryChunk;
+import com.boydti.fawe.jnbt.anvil.MCAChunk;
+import com.boydti.fawe.jnbt.anvil.MCAFilter;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Count every block in the world (by combined id, i.e. id << 4 + data)<br>
+ *     - Sections which don't exist are counted as air<br>
+ *     - Each thread counts into its own array, which are added up by {@link #get()}
+ */
+public class CountFilter extends MCAFilter<long[]> {
+
+    private final ConcurrentLinkedQueue<long[]> all = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<long[]> counts = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            long[] array = new long[Character.MAX_VALUE + 1];
+            all.add(array);
+            return array;
+        }
+    };
+
+    @Override
+    public void applyChunk(MCAChunk chunk) {
+        long[] array = counts.get();
+        for (MemoryChunk.Section section : chunk.sections) {
+            if (section == null) {
+                array[0] += 4096;
+                continue;
+            }
+            for (char combined : section.ids) {
+                array[combined]++;
+            }
+        }
+    }
+
+    /**
+     * @return The number of each block, indexed by combined id
+     */
+    @Override
+    public long[] get() {
+        long[] total = new long[Character.MAX_VALUE + 1];
+        for (long[] array : all) {
+            for (int i = 0; i < total.length; i++) {
+                total[i] += array[i];
+            }
+        }
+        return total;
+    }
+}
@@ -224,6 +224,55 @@ public abstract class FaweChunk<T> {
      */
     public void optimize() {}
 
+    private boolean dispatched;
+    private boolean optimizeQueued;
+
+    /**
+     * Mark this chunk as waiting to be optimized in the background
+     */
+    public synchronized void queueOptimize() {
+        this.optimizeQueued = true;
+    }
+
+    /**
+     * If this chunk is still waiting to be optimized in the background
+     * @return
+     */
+    public synchronized boolean isOptimizeQueued() {
+        return optimizeQueued;
+    }
+
+    /**
+     * Optimize this chunk unless it has already been dispatched<br>
+     *     - Used when optimizing in the background while the queue is being placed
+     * @return false if the chunk was already dispatched
+     */
+    public synchronized boolean optimizeIfQueued() {
+        optimizeQueued = false;
+        if (dispatched) {
+            return false;
+        }
+        optimize();
+        return true;
+    }
+
+    /**
+     * Mark this chunk as dispatched (waits for an optimization in progress to finish)
+     */
+    public synchronized void setDispatched() {
+        this.dispatched = true;
+    }
+
+    /**
+     * Clear this chunk so that it can be reused
+     * @see com.boydti.fawe.object.FaweQueue#recycle(FaweChunk)
+     */
+    public synchronized void reset() {
+        tasks.clear();
+        dispatched = false;
+        optimizeQueued = false;
+    }
+
     @Override
     public boolean equals(final Object obj) {
         if ((obj == null) || obj.hashCode() != hashCode() || !(obj instanceof FaweChunk)) {
@@ -29,6 +29,10 @@ public class FaweLimit {
                 return true;
             }
             @Override
+            public boolean MAX_CHECKS(int amount) {
+                return true;
+            }
+            @Override
             public boolean MAX_ENTITIES() {
                 return true;
             }
@@ -62,6 +66,16 @@ public class FaweLimit {
         return MAX_CHECKS-- > 0;
     }
 
+    /**
+     * Use a number of checks at once (e.g. a section read in bulk)
+     * @param amount
+     * @return false if there weren't enough checks left
+     */
+    public boolean MAX_CHECKS(int amount) {
+        MAX_CHECKS -= amount;
+        return MAX_CHECKS >= 0;
+    }
+
     public boolean MAX_ITERATIONS() {
         return MAX_ITERATIONS-- > 0;
     }
@@ -3,7 +3,9 @@ package com.boydti.fawe.object;
 import com.boydti.fawe.Fawe;
 import com.boydti.fawe.FaweCache;
 import com.boydti.fawe.config.BBC;
+import com.boydti.fawe.config.Settings;
 import com.boydti.fawe.object.exception.FaweException;
+import com.boydti.fawe.util.FaweStats;
 import com.boydti.fawe.util.MainUtil;
 import com.boydti.fawe.util.MathMan;
 import com.boydti.fawe.util.MemUtil;
@@ -14,6 +16,7 @@ import com.sk89q.worldedit.EditSession;
 import com.sk89q.worldedit.Vector;
 import com.sk89q.worldedit.blocks.BaseBlock;
 import com.sk89q.worldedit.blocks.BlockMaterial;
+import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.world.biome.BaseBiome;
 import com.sk89q.worldedit.world.registry.BundledBlockData;
 import java.io.File;
@@ -23,6 +26,7 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 public abstract class FaweQueue {
 
@@ -31,6 +35,15 @@ public abstract class FaweQueue {
     private long modified = System.currentTimeMillis();
     private RunnableVal2<FaweChunk, FaweChunk> changeTask;
     private RunnableVal2<ProgressType, Integer> progressTask;
+    private DispatchOrder dispatchOrder = DispatchOrder.getDefault();
+    private int pendingLimit = Settings.QUEUE.MAX_PENDING_CHUNKS;
+    private final Object capacityLock = new Object();
+    private volatile int waiting;
+    private static final AtomicReferenceFieldUpdater<FaweQueue, QueueStats> STATS = AtomicReferenceFieldUpdater.newUpdater(FaweQueue.class, QueueStats.class, "stats");
+    /**
+     * Created when first used (only while stats.enabled is true)
+     */
+    private volatile QueueStats stats;
 
     public FaweQueue(String world) {
         this.world = world;
@@ -48,6 +61,34 @@ public abstract class FaweQueue {
         ALL,
     }
 
+    /**
+     * The order queued chunks are placed in
+     */
+    public enum DispatchOrder {
+        /**
+         * The order the chunks were first changed
+         */
+        INSERTION,
+        /**
+         * Along a Z-order curve
+         */
+        MORTON,
+        /**
+         * Along a Hilbert curve
+         */
+        HILBERT,
+        /**
+         * Closest to the player making the edit first (falls back to HILBERT)
+         */
+        NEAREST,
+        ;
+
+        public static DispatchOrder getDefault() {
+            DispatchOrder[] values = values();
+            return values[Math.max(0, Math.min(values.length - 1, Settings.QUEUE.DISPATCH_ORDER))];
+        }
+    }
+
     public void addEditSession(EditSession session) {
         if (session == null) {
             return;
@@ -62,6 +103,22 @@ public abstract class FaweQueue {
         return world;
     }
 
+    /**
+     * Get the statistics for this queue (see /fstats)<br>
+     *     - Only call this while stats.enabled is true, as the statistics are created on first use
+     * @return
+     */
+    public QueueStats getStats() {
+        QueueStats value = stats;
+        if (value == null) {
+            value = FaweStats.newQueueStats();
+            if (!STATS.compareAndSet(this, null, value)) {
+                value = stats;
+            }
+        }
+        return value;
+    }
+
     /**
      * Add a progress task<br>
      *      - Progress type
@@ -108,8 +165,98 @@ public abstract class FaweQueue {
         return changeTask;
     }
 
+    public DispatchOrder getDispatchOrder() {
+        return dispatchOrder;
+    }
+
+    /**
+     * Set the order queued chunks are placed in
+     * @param order
+     */
+    public void setDispatchOrder(DispatchOrder order) {
+        this.dispatchOrder = order;
+    }
+
+    /**
+     * The number of queued chunks at which {@link #awaitCapacity()} waits
+     * @return The limit, or 0 if unlimited
+     */
+    public int getPendingLimit() {
+        if (pendingLimit <= 0) {
+            return 0;
+        }
+        // Inactive queues are only placed from once there are more than target-size chunks queued
+        return Math.max(pendingLimit, Settings.QUEUE.TARGET_SIZE + 1);
+    }
+
+    /**
+     * Set the number of queued chunks at which {@link #awaitCapacity()} waits
+     * @param limit The limit, or 0 for unlimited
+     */
+    public void setPendingLimit(int limit) {
+        this.pendingLimit = limit;
+    }
+
+    /**
+     * Wait until fewer chunks than the pending limit are queued<br>
+     *     - Returns immediately if there is no limit, on the main thread, or if the queue isn't in the SetQueue (nothing would place it)<br>
+     *     - Called automatically when a chunk is added to a queue, but can also be used by producers directly<br>
+     *     - While a producer is waiting, the queue is placed from alongside the active queues (even if it hasn't been enqueued yet)
+     * @return false if the thread was interrupted
+     */
+    public boolean awaitCapacity() {
+        int limit = getPendingLimit();
+        if (limit == 0 || size() < limit) {
+            return true;
+        }
+        synchronized (capacityLock) {
+            waiting++;
+            try {
+                while (size() >= limit) {
+                    if (Thread.currentThread() == Fawe.get().getMainThread() || isStage(SetQueue.QueueStage.NONE)) {
+                        return true;
+                    }
+                    // Timed, so that a queue which is removed from the SetQueue doesn't wait forever
+                    capacityLock.wait(50);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                waiting--;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * If a producer is waiting in {@link #awaitCapacity()} for chunks to be placed
+     * @return
+     */
+    public boolean hasWaitingProducers() {
+        return waiting != 0;
+    }
+
+    /**
+     * Wake up producers waiting in {@link #awaitCapacity()} (called as chunks are placed)
+     */
+    protected void signalCapacity() {
+        if (waiting != 0) {
+            synchronized (capacityLock) {
+                capacityLock.notifyAll();
+            }
+        }
+    }
+
     public void optimize() {}
 
+    /**
+     * Declare the chunks an edit is about to read, so that they can be loaded in bulk<br>
+     *     - Reads of a chunk which is still loading will wait for it (up to chunk-wait-ms)
+     * @param region
+     */
+    public void prefetch(Region region) {}
+
     public abstract boolean setBlock(final int x, final int y, final int z, final int id, final int data);
 
     public boolean setBlock(int x, int y, int z, int id) {
@@ -134,6 +281,13 @@ public abstract class FaweQueue {
 
     public abstract FaweChunk<?> getFaweChunk(int x, int z);
 
+    /**
+     * Return a chunk to be reused by a later call to getFaweChunk<br>
+     *     - Only call this once nothing references the chunk (or its arrays) anymore
+     * @param chunk
+     */
+    public void recycle(FaweChunk chunk) {}
+
     public abstract Collection<FaweChunk> getFaweChunks();
 
     public abstract void setChunk(final FaweChunk<?> chunk);
@@ -200,6 +354,11 @@ public abstract class FaweQueue {
 
     public abstract boolean regenerateChunk(int x, int z);
 
+    /**
+     * Called on the main thread each tick, before blocks are placed from this queue
+     */
+    public void beforePlace() {}
+
     public void startSet(boolean parallel) {}
 
     public void endSet(boolean parallel) {}
@@ -251,6 +410,73 @@ public abstract class FaweQueue {
 
     public abstract int getCombinedId4Data(int x, int y, int z) throws FaweException.FaweChunkLoadException;
 
+    /**
+     * Copy the combined ids of a 16x16x16 section into an array<br>
+     *     - index = (y & 15) << 8 | z << 4 | x (see FaweCache.CACHE_J)<br>
+     *     - Much faster than reading each block with getCombinedId4Data
+     * @param cx The chunk x
+     * @param cy The section (y >> 4)
+     * @param cz The chunk z
+     * @param snapshot A char[4096] (an empty section is filled with 0)
+     * @return false if the chunk isn't loaded (and couldn't be loaded)
+     * @throws FaweException.FaweChunkLoadException
+     */
+    public boolean getSectionSnapshot(int cx, int cy, int cz, char[] snapshot) throws FaweException.FaweChunkLoadException {
+        int bx = cx << 4;
+        int by = cy << 4;
+        int bz = cz << 4;
+        int index = 0;
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    snapshot[index++] = (char) getCombinedId4Data(bx + x, by + y, bz + z);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copy the combined ids of a chunk (see {@link #getSectionSnapshot(int, int, int, char[])})
+     * @param cx
+     * @param cz
+     * @param snapshot A char[16][] (section arrays are created as needed, and reused if present)
+     * @return The sections which have blocks as a bit mask (others are left unchanged), or -1 if the chunk isn't loaded
+     * @throws FaweException.FaweChunkLoadException
+     */
+    public int getChunkSnapshot(int cx, int cz, char[][] snapshot) throws FaweException.FaweChunkLoadException {
+        int mask = 0;
+        char[] buffer = null;
+        for (int cy = 0; cy < 16; cy++) {
+            if (buffer == null) {
+                buffer = new char[4096];
+            }
+            if (!getSectionSnapshot(cx, cy, cz, buffer)) {
+                return -1;
+            }
+            if (isEmpty(buffer)) {
+                continue;
+            }
+            if (snapshot[cy] == null) {
+                snapshot[cy] = buffer;
+                buffer = null;
+            } else {
+                System.arraycopy(buffer, 0, snapshot[cy], 0, 4096);
+            }
+            mask |= 1 << cy;
+        }
+        return mask;
+    }
+
+    private static boolean isEmpty(char[] section) {
+        for (char combined : section) {
+            if (combined != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public int getAdjacentLight(int x, int y, int z) {
         int light = 0;
         if ((light = Math.max(light, getSkyLight(x - 1, y, z))) == 15) {
@@ -357,6 +583,17 @@ public abstract class FaweQueue {
         }
     }
 
+    /**
+     * @return The stage of this queue in the SetQueue
+     */
+    public SetQueue.QueueStage getStage() {
+        return SetQueue.IMP.getStage(this);
+    }
+
+    public boolean isStage(SetQueue.QueueStage stage) {
+        return getStage() == stage;
+    }
+
     public void enqueue() {
         SetQueue.IMP.enqueue(this);
     }
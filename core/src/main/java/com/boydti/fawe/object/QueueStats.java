@@ -0,0 +1,167 @@
+package com.boydti.fawe.object;
+
+import com.boydti.fawe.util.Histogram;
+import com.boydti.fawe.util.SetQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics for a queue (everything recorded is also added to the parent, i.e. the global statistics)<br>
+ *     - Stage times are in milliseconds<br>
+ *     - Operation times are in microseconds
+ */
+public class QueueStats {
+
+    private final QueueStats parent;
+
+    private final AtomicLong chunks = new AtomicLong();
+    private final AtomicLong blocks = new AtomicLong();
+    private final Histogram inactive = new Histogram();
+    private final Histogram active = new Histogram();
+    private final Histogram setComponents = new Histogram();
+    private final Histogram relight = new Histogram();
+    private final Histogram historyFlush = new Histogram();
+    private final Histogram chunkLoad = new Histogram();
+
+    private SetQueue.QueueStage stage = SetQueue.QueueStage.NONE;
+    private long stageStart;
+    private volatile long firstPlaced;
+    private volatile long lastPlaced;
+
+    public QueueStats(QueueStats parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Called when the queue moves to another stage in the SetQueue (the time spent in the previous stage is recorded)
+     * @param stage
+     */
+    public synchronized void setStage(SetQueue.QueueStage stage) {
+        if (this.stage == stage) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        switch (this.stage) {
+            case INACTIVE:
+                addInactive(now - stageStart);
+                break;
+            case ACTIVE:
+                addActive(now - stageStart);
+                break;
+        }
+        this.stage = stage;
+        this.stageStart = now;
+    }
+
+    public void addChunk(int blocks, long nanos) {
+        long now = System.currentTimeMillis();
+        if (firstPlaced == 0) {
+            firstPlaced = now;
+        }
+        lastPlaced = now;
+        this.chunks.incrementAndGet();
+        this.blocks.addAndGet(blocks);
+        setComponents.record(nanos / 1000);
+        if (parent != null) {
+            parent.addChunk(blocks, nanos);
+        }
+    }
+
+    public void addRelight(long nanos) {
+        relight.record(nanos / 1000);
+        if (parent != null) {
+            parent.addRelight(nanos);
+        }
+    }
+
+    public void addHistoryFlush(long nanos) {
+        historyFlush.record(nanos / 1000);
+        if (parent != null) {
+            parent.addHistoryFlush(nanos);
+        }
+    }
+
+    public void addChunkLoad(long nanos) {
+        chunkLoad.record(nanos / 1000);
+        if (parent != null) {
+            parent.addChunkLoad(nanos);
+        }
+    }
+
+    private void addInactive(long millis) {
+        inactive.record(millis);
+        if (parent != null) {
+            parent.addInactive(millis);
+        }
+    }
+
+    private void addActive(long millis) {
+        active.record(millis);
+        if (parent != null) {
+            parent.addActive(millis);
+        }
+    }
+
+    public long getChunks() {
+        return chunks.get();
+    }
+
+    public long getBlocks() {
+        return blocks.get();
+    }
+
+    /**
+     * @return The average chunks placed per second (between the first and last chunk placed)
+     */
+    public double getChunksPerSecond() {
+        return perSecond(chunks.get());
+    }
+
+    /**
+     * @return The average blocks placed per second (between the first and last chunk placed)
+     */
+    public double getBlocksPerSecond() {
+        return perSecond(blocks.get());
+    }
+
+    private double perSecond(long amount) {
+        long elapsed = lastPlaced - firstPlaced;
+        return elapsed <= 0 ? 0 : (amount * 1000d) / elapsed;
+    }
+
+    public Histogram getInactive() {
+        return inactive;
+    }
+
+    public Histogram getActive() {
+        return active;
+    }
+
+    public Histogram getSetComponents() {
+        return setComponents;
+    }
+
+    public Histogram getRelight() {
+        return relight;
+    }
+
+    public Histogram getHistoryFlush() {
+        return historyFlush;
+    }
+
+    public Histogram getChunkLoad() {
+        return chunkLoad;
+    }
+
+    public void reset() {
+        chunks.set(0);
+        blocks.set(0);
+        firstPlaced = 0;
+        lastPlaced = 0;
+        inactive.reset();
+        active.reset();
+        setComponents.reset();
+        relight.reset();
+        historyFlush.reset();
+        chunkLoad.reset();
+    }
+}
@@ -169,12 +169,12 @@ public abstract class FaweChangeSet implements ChangeSet {
     private AtomicInteger waiting = new AtomicInteger(0);
     private Object lock = new Object();
 
-    public void addChangeTask(FaweQueue queue) {
+    public void addChangeTask(final FaweQueue queue) {
         queue.setChangeTask(new RunnableVal2<FaweChunk, FaweChunk>() {
             @Override
             public void run(final FaweChunk previous, final FaweChunk next) {
                 waiting.incrementAndGet();
-                TaskManager.IMP.async(new Runnable() {
+                Runnable task = new Runnable() {
                     @Override
                     public void run() {
                         try {
@@ -264,6 +264,8 @@ public abstract class FaweChangeSet implements ChangeSet {
                         } catch (Throwable e) {
                             MainUtil.handleError(e);
                         } finally {
+                            // Nothing else holds the previous chunk
+                            queue.recycle(previous);
                             if (waiting.decrementAndGet() <= 0) {
                                 synchronized (lock) {
                                     lock.notifyAll();
@@ -271,7 +273,13 @@ public abstract class FaweChangeSet implements ChangeSet {
                             }
                         }
                     }
-                });
+                };
+                if (TaskManager.IMP == null) {
+                    // No platform (e.g. a MemoryWorld), so it's recorded on the placing thread
+                    task.run();
+                } else {
+                    TaskManager.IMP.async(task);
+                }
             }
         });
     }
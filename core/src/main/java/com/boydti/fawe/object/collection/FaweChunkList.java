@@ -0,0 +1,325 @@
+package com.boydti.fawe.object.collection;
+
+import com.boydti.fawe.object.FaweChunk;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * An insertion ordered queue of chunks backed by a growable array ring<br>
+ *     - Unlike a ConcurrentLinkedDeque, no node is allocated per chunk<br>
+ *     - Removing an arbitrary chunk leaves a hole which is skipped when polling<br>
+ *     - Iteration is over a snapshot<br>
+ *     - The queued chunks can be reordered with {@link #sort(ChunkKey)} (without blocking other threads while sorting)
+ */
+public class FaweChunkList extends AbstractCollection<FaweChunk> {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private FaweChunk[] ring;
+    private int head;
+    private int used;
+    private volatile int size;
+    private volatile boolean sorted;
+    /**
+     * The number of chunks added, polled and removed (so a sort can tell what changed while it ran)
+     */
+    private long added;
+    private long polled;
+    private long removed;
+
+    public interface ChunkKey {
+        /**
+         * @param chunk
+         * @return The sort key (lowest first)
+         */
+        long getKey(FaweChunk chunk);
+    }
+
+    public FaweChunkList() {
+        this.ring = new FaweChunk[INITIAL_CAPACITY];
+    }
+
+    @Override
+    public synchronized boolean add(FaweChunk chunk) {
+        if (chunk == null) {
+            throw new NullPointerException();
+        }
+        if (used == ring.length) {
+            grow();
+        }
+        ring[(head + used) & (ring.length - 1)] = chunk;
+        used++;
+        size++;
+        added++;
+        sorted = false;
+        return true;
+    }
+
+    /**
+     * Get and remove the oldest chunk
+     * @return The chunk, or null if empty
+     */
+    public synchronized FaweChunk poll() {
+        int mask = ring.length - 1;
+        while (used > 0) {
+            FaweChunk chunk = ring[head];
+            ring[head] = null;
+            head = (head + 1) & mask;
+            used--;
+            if (chunk != null) {
+                size--;
+                polled++;
+                return chunk;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the oldest chunk without removing it
+     * @return The chunk, or null if empty
+     */
+    public synchronized FaweChunk peek() {
+        int mask = ring.length - 1;
+        for (int i = 0; i < used; i++) {
+            FaweChunk chunk = ring[(head + i) & mask];
+            if (chunk != null) {
+                return chunk;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized boolean remove(Object o) {
+        int mask = ring.length - 1;
+        for (int i = 0; i < used; i++) {
+            int index = (head + i) & mask;
+            if (ring[index] == o) {
+                ring[index] = null;
+                size--;
+                removed++;
+                if (i == 0) {
+                    // Don't leave a hole at the front
+                    head = (head + 1) & mask;
+                    used--;
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public synchronized void clear() {
+        if (ring.length > INITIAL_CAPACITY) {
+            ring = new FaweChunk[INITIAL_CAPACITY];
+        } else {
+            Arrays.fill(ring, null);
+        }
+        head = 0;
+        used = 0;
+        size = 0;
+        removed++;
+        sorted = true;
+    }
+
+    /**
+     * If no chunks have been added since the last call to {@link #sort(ChunkKey)}
+     * @return
+     */
+    public boolean isSorted() {
+        return sorted;
+    }
+
+    /**
+     * Reorder the queued chunks by a key (lowest first)<br>
+     *     - The chunks are copied, then sorted without holding the lock, so chunks can still be added and polled<br>
+     *     - Chunks polled in the meantime are left out, and chunks added in the meantime are appended (unsorted) until the next sort<br>
+     *     - If a chunk was removed in the meantime, the order is left unchanged
+     * @param function
+     * @return false if the order was left unchanged
+     */
+    public boolean sort(ChunkKey function) {
+        FaweChunk[] original;
+        long addedStart;
+        long polledStart;
+        long removedStart;
+        synchronized (this) {
+            compact(ring.length);
+            original = Arrays.copyOf(ring, used);
+            addedStart = added;
+            polledStart = polled;
+            removedStart = removed;
+        }
+        int length = original.length;
+        FaweChunk[] values = original.clone();
+        long[] keys = new long[length];
+        for (int i = 0; i < length; i++) {
+            keys[i] = function.getKey(values[i]);
+        }
+        sort(keys, values, 0, length - 1);
+        synchronized (this) {
+            // Polling takes from the front, in the original order
+            int polledSince = (int) (polled - polledStart);
+            int addedSince = (int) (added - addedStart);
+            if (removed != removedStart || polledSince > length) {
+                return false;
+            }
+            Set<FaweChunk> gone = null;
+            if (polledSince > 0) {
+                gone = Collections.newSetFromMap(new IdentityHashMap<FaweChunk, Boolean>(polledSince << 1));
+                for (int i = 0; i < polledSince; i++) {
+                    gone.add(original[i]);
+                }
+            }
+            int count = length - polledSince + addedSince;
+            int capacity = INITIAL_CAPACITY;
+            while (capacity < count) {
+                capacity <<= 1;
+            }
+            FaweChunk[] newRing = new FaweChunk[capacity];
+            int j = 0;
+            for (int i = 0; i < length; i++) {
+                FaweChunk chunk = values[i];
+                if (gone == null || !gone.contains(chunk)) {
+                    newRing[j++] = chunk;
+                }
+            }
+            // The chunks added since are at the end of the ring (there are no holes, as nothing was removed)
+            int mask = ring.length - 1;
+            for (int i = used - addedSince; i < used; i++) {
+                newRing[j++] = ring[(head + i) & mask];
+            }
+            ring = newRing;
+            head = 0;
+            used = j;
+            sorted = addedSince == 0;
+            return true;
+        }
+    }
+
+    /**
+     * Quicksort the keys and chunks together (the key is computed once per chunk rather than once per comparison)
+     */
+    private static void sort(long[] keys, FaweChunk[] values, int lo, int hi) {
+        while (hi - lo > 16) {
+            int mid = (lo + hi) >>> 1;
+            // Median of three
+            if (keys[mid] < keys[lo]) {
+                swap(keys, values, mid, lo);
+            }
+            if (keys[hi] < keys[lo]) {
+                swap(keys, values, hi, lo);
+            }
+            if (keys[hi] < keys[mid]) {
+                swap(keys, values, hi, mid);
+            }
+            long pivot = keys[mid];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (keys[i] < pivot) {
+                    i++;
+                }
+                while (keys[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(keys, values, i++, j--);
+                }
+            }
+            // Recurse into the smaller half
+            if (j - lo < hi - i) {
+                sort(keys, values, lo, j);
+                lo = i;
+            } else {
+                sort(keys, values, i, hi);
+                hi = j;
+            }
+        }
+        for (int i = lo + 1; i <= hi; i++) {
+            long key = keys[i];
+            FaweChunk value = values[i];
+            int j = i - 1;
+            while (j >= lo && keys[j] > key) {
+                keys[j + 1] = keys[j];
+                values[j + 1] = values[j];
+                j--;
+            }
+            keys[j + 1] = key;
+            values[j + 1] = value;
+        }
+    }
+
+    private static void swap(long[] keys, FaweChunk[] values, int a, int b) {
+        long key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+        FaweChunk value = values[a];
+        values[a] = values[b];
+        values[b] = value;
+    }
+
+    /**
+     * Copy the chunks (in queue order) to a new list
+     * @return
+     */
+    public synchronized ArrayList<FaweChunk> toList() {
+        ArrayList<FaweChunk> list = new ArrayList<>(size);
+        int mask = ring.length - 1;
+        for (int i = 0; i < used; i++) {
+            FaweChunk chunk = ring[(head + i) & mask];
+            if (chunk != null) {
+                list.add(chunk);
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public Iterator<FaweChunk> iterator() {
+        return toList().iterator();
+    }
+
+    /**
+     * Double the capacity (or compact if at least half of the ring is holes)
+     */
+    private void grow() {
+        compact(size > ring.length >> 1 ? ring.length << 1 : ring.length);
+    }
+
+    /**
+     * Move the chunks (without holes) to the start of a new ring
+     * @param capacity
+     */
+    private void compact(int capacity) {
+        FaweChunk[] newRing = new FaweChunk[capacity];
+        int mask = ring.length - 1;
+        int j = 0;
+        for (int i = 0; i < used; i++) {
+            FaweChunk chunk = ring[(head + i) & mask];
+            if (chunk != null) {
+                newRing[j++] = chunk;
+            }
+        }
+        ring = newRing;
+        head = 0;
+        used = j;
+    }
+}
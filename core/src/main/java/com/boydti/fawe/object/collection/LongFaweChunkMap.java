@@ -0,0 +1,224 @@
+package com.boydti.fawe.object.collection;
+
+import com.boydti.fawe.object.FaweChunk;
+import java.util.Arrays;
+
+/**
+ * A concurrent map of chunk pair (x << 32 | z) to FaweChunk<br>
+ *     - Keys are stored as primitive longs (no boxing)<br>
+ *     - Open addressing (linear probing), so there is no entry object per chunk<br>
+ *     - Lock striped, so producers and placement workers rarely contend for the same lock
+ */
+public class LongFaweChunkMap {
+
+    private static final int STRIPE_BITS = 4;
+    private static final int STRIPES = 1 << STRIPE_BITS;
+
+    private final Stripe[] stripes;
+
+    public LongFaweChunkMap() {
+        this.stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    private Stripe stripe(int hash) {
+        return stripes[hash >>> (32 - STRIPE_BITS)];
+    }
+
+    public FaweChunk get(long key) {
+        int hash = hash(key);
+        return stripe(hash).get(key, hash);
+    }
+
+    public FaweChunk get(int cx, int cz) {
+        return get((long) cx << 32 | cz & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Map a chunk
+     * @param key
+     * @param chunk
+     * @return The chunk that was previously mapped, or null
+     */
+    public FaweChunk put(long key, FaweChunk chunk) {
+        int hash = hash(key);
+        return stripe(hash).put(key, hash, chunk, false);
+    }
+
+    /**
+     * Map a chunk if no chunk is already mapped to this key
+     * @param key
+     * @param chunk
+     * @return The existing chunk (nothing was changed), or null if the chunk was added
+     */
+    public FaweChunk putIfAbsent(long key, FaweChunk chunk) {
+        int hash = hash(key);
+        return stripe(hash).put(key, hash, chunk, true);
+    }
+
+    public FaweChunk remove(long key) {
+        int hash = hash(key);
+        return stripe(hash).remove(key, hash, null);
+    }
+
+    /**
+     * Remove a key only if it is still mapped to the provided chunk
+     * @param key
+     * @param chunk
+     * @return true if it was removed
+     */
+    public boolean remove(long key, FaweChunk chunk) {
+        int hash = hash(key);
+        return stripe(hash).remove(key, hash, chunk) != null;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size;
+        }
+        return size;
+    }
+
+    public boolean isEmpty() {
+        for (Stripe stripe : stripes) {
+            if (stripe.size != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            stripe.clear();
+        }
+    }
+
+    private static final class Stripe {
+        private static final int INITIAL_CAPACITY = 64;
+
+        private long[] keys;
+        private FaweChunk[] values;
+        private int mask;
+        private volatile int size;
+
+        private Stripe() {
+            init(INITIAL_CAPACITY);
+        }
+
+        private void init(int capacity) {
+            this.keys = new long[capacity];
+            this.values = new FaweChunk[capacity];
+            this.mask = capacity - 1;
+        }
+
+        private synchronized FaweChunk get(long key, int hash) {
+            int index = hash & mask;
+            FaweChunk value;
+            while ((value = values[index]) != null) {
+                if (keys[index] == key) {
+                    return value;
+                }
+                index = (index + 1) & mask;
+            }
+            return null;
+        }
+
+        private synchronized FaweChunk put(long key, int hash, FaweChunk chunk, boolean onlyIfAbsent) {
+            int index = hash & mask;
+            FaweChunk value;
+            while ((value = values[index]) != null) {
+                if (keys[index] == key) {
+                    if (!onlyIfAbsent) {
+                        values[index] = chunk;
+                    }
+                    return value;
+                }
+                index = (index + 1) & mask;
+            }
+            keys[index] = key;
+            values[index] = chunk;
+            // Keep the load factor at or below 0.5 so probe sequences stay short
+            if (++size > (mask + 1) >> 1) {
+                resize();
+            }
+            return null;
+        }
+
+        private synchronized FaweChunk remove(long key, int hash, FaweChunk expected) {
+            int index = hash & mask;
+            FaweChunk value;
+            while ((value = values[index]) != null) {
+                if (keys[index] == key) {
+                    if (expected != null && expected != value) {
+                        return null;
+                    }
+                    delete(index);
+                    size--;
+                    return value;
+                }
+                index = (index + 1) & mask;
+            }
+            return null;
+        }
+
+        /**
+         * Backward shift deletion (no tombstones)
+         * @param gap
+         */
+        private void delete(int gap) {
+            values[gap] = null;
+            int index = (gap + 1) & mask;
+            while (values[index] != null) {
+                int ideal = hash(keys[index]) & mask;
+                // Move the entry into the gap if the gap lies between its ideal slot and its current slot
+                if (((index - ideal) & mask) >= ((index - gap) & mask)) {
+                    keys[gap] = keys[index];
+                    values[gap] = values[index];
+                    values[index] = null;
+                    gap = index;
+                }
+                index = (index + 1) & mask;
+            }
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            FaweChunk[] oldValues = values;
+            init(oldValues.length << 1);
+            for (int i = 0; i < oldValues.length; i++) {
+                FaweChunk value = oldValues[i];
+                if (value != null) {
+                    long key = oldKeys[i];
+                    int index = hash(key) & mask;
+                    while (values[index] != null) {
+                        index = (index + 1) & mask;
+                    }
+                    keys[index] = key;
+                    values[index] = value;
+                }
+            }
+        }
+
+        private synchronized void clear() {
+            if (values.length > INITIAL_CAPACITY) {
+                init(INITIAL_CAPACITY);
+            } else {
+                Arrays.fill(values, null);
+            }
+            size = 0;
+        }
+    }
+}
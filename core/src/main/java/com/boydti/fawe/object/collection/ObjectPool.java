@@ -0,0 +1,53 @@
+package com.boydti.fawe.object.collection;
+
+/**
+ * A bounded, thread safe pool of objects for reuse<br>
+ *     - Objects offered when the pool is full are left for the garbage collector
+ * @param <T>
+ */
+public class ObjectPool<T> {
+
+    private final Object[] stack;
+    private int size;
+
+    public ObjectPool(int capacity) {
+        this.stack = new Object[Math.max(0, capacity)];
+    }
+
+    /**
+     * Take an object from the pool
+     * @return The object, or null if the pool is empty
+     */
+    public synchronized T poll() {
+        if (size == 0) {
+            return null;
+        }
+        T value = (T) stack[--size];
+        stack[size] = null;
+        return value;
+    }
+
+    /**
+     * Return an object to the pool
+     * @param value
+     * @return false if the pool is full
+     */
+    public synchronized boolean offer(T value) {
+        if (size == stack.length) {
+            return false;
+        }
+        stack[size++] = value;
+        return true;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < size; i++) {
+            stack[i] = null;
+        }
+        size = 0;
+    }
+}
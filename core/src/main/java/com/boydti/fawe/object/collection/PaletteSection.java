@@ -0,0 +1,203 @@
+package com.boydti.fawe.object.collection;
+
+import java.util.Arrays;
+
+/**
+ * A 16x16x16 section of combined ids stored as a palette<br>
+ *     - A section with a single value (e.g. fully set to one block) stores no index data<br>
+ *     - Otherwise each block is an index into the palette (1, 2, 4 or 8 bits, so an index never spans two longs)<br>
+ *     - At most 256 distinct values can be stored, after which the section should be unpacked to a char[]
+ */
+public class PaletteSection {
+
+    private static final int SIZE = 4096;
+
+    private char[] palette;
+    private int paletteSize;
+    private int bits;
+    private long[] data;
+    private int lastIndex;
+
+    /**
+     * A section where every block is 0
+     */
+    public PaletteSection() {
+        this.palette = new char[4];
+        this.paletteSize = 1;
+    }
+
+    private PaletteSection(PaletteSection other) {
+        this.palette = other.palette.clone();
+        this.paletteSize = other.paletteSize;
+        this.bits = other.bits;
+        this.data = other.data != null ? other.data.clone() : null;
+    }
+
+    public char get(int index) {
+        if (bits == 0) {
+            return palette[0];
+        }
+        return palette[read(data, bits, index)];
+    }
+
+    /**
+     * Set the value at an index
+     * @param index
+     * @param value
+     * @return false if the value could not be added to the palette (the section has 256 distinct values)
+     */
+    public boolean set(int index, char value) {
+        int paletteIndex = indexOf(value);
+        if (paletteIndex == -1) {
+            if (paletteSize == 256) {
+                return false;
+            }
+            paletteIndex = add(value);
+        }
+        if (bits != 0) {
+            write(data, bits, index, paletteIndex);
+        }
+        return true;
+    }
+
+    /**
+     * Get the number of bits used per block
+     * @return 0, 1, 2, 4 or 8
+     */
+    public int getBits() {
+        return bits;
+    }
+
+    public int getPaletteSize() {
+        return paletteSize;
+    }
+
+    /**
+     * Remove palette values which are no longer used, and use fewer bits per block if possible
+     */
+    public void trim() {
+        if (bits == 0) {
+            return;
+        }
+        boolean[] used = new boolean[paletteSize];
+        int newSize = 0;
+        for (int i = 0; i < SIZE; i++) {
+            int paletteIndex = read(data, bits, i);
+            if (!used[paletteIndex]) {
+                used[paletteIndex] = true;
+                newSize++;
+            }
+        }
+        if (newSize == paletteSize) {
+            return;
+        }
+        int[] remap = new int[paletteSize];
+        char[] newPalette = new char[Math.max(4, newSize)];
+        for (int i = 0, j = 0; i < paletteSize; i++) {
+            if (used[i]) {
+                remap[i] = j;
+                newPalette[j++] = palette[i];
+            }
+        }
+        int newBits = getBits(newSize);
+        long[] newData = null;
+        if (newBits != 0) {
+            newData = new long[(SIZE * newBits) >> 6];
+            for (int i = 0; i < SIZE; i++) {
+                write(newData, newBits, i, remap[read(data, bits, i)]);
+            }
+        }
+        this.palette = newPalette;
+        this.paletteSize = newSize;
+        this.bits = newBits;
+        this.data = newData;
+        this.lastIndex = 0;
+    }
+
+    /**
+     * Unpack the section to a char[4096]
+     * @param array
+     */
+    public void toArray(char[] array) {
+        if (bits == 0) {
+            Arrays.fill(array, 0, SIZE, palette[0]);
+            return;
+        }
+        int perLong = 64 / bits;
+        int mask = (1 << bits) - 1;
+        int index = 0;
+        for (long value : data) {
+            for (int k = 0; k < perLong; k++) {
+                array[index++] = palette[(int) value & mask];
+                value >>>= bits;
+            }
+        }
+    }
+
+    public PaletteSection copy() {
+        return new PaletteSection(this);
+    }
+
+    private int indexOf(char value) {
+        if (palette[lastIndex] == value) {
+            return lastIndex;
+        }
+        for (int i = 0; i < paletteSize; i++) {
+            if (palette[i] == value) {
+                lastIndex = i;
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int add(char value) {
+        if (paletteSize == palette.length) {
+            palette = Arrays.copyOf(palette, palette.length << 1);
+        }
+        int index = paletteSize++;
+        palette[index] = value;
+        int newBits = getBits(paletteSize);
+        if (newBits != bits) {
+            long[] newData = new long[(SIZE * newBits) >> 6];
+            // With 0 bits every index is 0, which the new (zeroed) data already is
+            if (bits != 0) {
+                for (int i = 0; i < SIZE; i++) {
+                    write(newData, newBits, i, read(data, bits, i));
+                }
+            }
+            this.data = newData;
+            this.bits = newBits;
+        }
+        lastIndex = index;
+        return index;
+    }
+
+    private static int getBits(int paletteSize) {
+        if (paletteSize <= 1) {
+            return 0;
+        }
+        if (paletteSize <= 2) {
+            return 1;
+        }
+        if (paletteSize <= 4) {
+            return 2;
+        }
+        if (paletteSize <= 16) {
+            return 4;
+        }
+        return 8;
+    }
+
+    private static int read(long[] data, int bits, int index) {
+        int bitIndex = index * bits;
+        return (int) (data[bitIndex >> 6] >>> (bitIndex & 63)) & ((1 << bits) - 1);
+    }
+
+    private static void write(long[] data, int bits, int index, int value) {
+        int bitIndex = index * bits;
+        int word = bitIndex >> 6;
+        int shift = bitIndex & 63;
+        data[word] = (data[word] & ~(((1L << bits) - 1) << shift)) | ((long) value << shift);
+    }
+}
@@ -0,0 +1,195 @@
+package com.boydti.fawe.object.io;
+
+import com.boydti.fawe.util.MainUtil;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A memory-mapped scratch file for the block arrays of queued chunks<br>
+ *     - Each section is stored in its own fixed size block, so a block released by one chunk is reused by the next<br>
+ *     - The file only grows to the most sections spilled at once (not the total ever spilled)<br>
+ *     - Only the most recently used regions are kept mapped<br>
+ *     - The OS pages the mapped regions in and out, so spilled data doesn't count towards the heap
+ */
+public class MappedSpillFile {
+
+    private static final int SECTION_LENGTH = 4096;
+    private static final int BLOCK_SIZE = SECTION_LENGTH << 1;
+    private static final int REGION_SIZE = 1 << 24;
+    private static final int BLOCKS_PER_REGION = REGION_SIZE / BLOCK_SIZE;
+    private static final int MAX_MAPPED = 4;
+
+    private final File file;
+    private RandomAccessFile raf;
+    private FileChannel channel;
+    private final LinkedHashMap<Integer, MappedByteBuffer> regions = new LinkedHashMap<Integer, MappedByteBuffer>(MAX_MAPPED + 1, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, MappedByteBuffer> eldest) {
+            // The mapping is released once the buffer is garbage collected
+            return size() > MAX_MAPPED;
+        }
+    };
+    /**
+     * The number of blocks used from the start of the file
+     */
+    private int blocks;
+    /**
+     * Released blocks, which are used before the file is extended
+     */
+    private int[] free = new int[64];
+    private int freeCount;
+    private int live;
+
+    public MappedSpillFile(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Write the non null sections (each must be a char[4096])
+     * @param sections
+     * @return The block of each section (-1 for null sections), to pass to {@link #read(int[], char[][])}
+     * @throws IOException
+     */
+    public synchronized int[] write(char[][] sections) throws IOException {
+        int[] written = new int[sections.length];
+        Arrays.fill(written, -1);
+        try {
+            for (int i = 0; i < sections.length; i++) {
+                char[] section = sections[i];
+                if (section == null) {
+                    continue;
+                }
+                if (section.length != SECTION_LENGTH) {
+                    throw new IllegalArgumentException("Invalid section length: " + section.length);
+                }
+                int block = allocate();
+                written[i] = block;
+                slice(block).asCharBuffer().put(section);
+            }
+        } catch (IOException | RuntimeException e) {
+            release(written);
+            throw e;
+        }
+        return written;
+    }
+
+    /**
+     * Read sections back into the provided arrays, then release their blocks
+     * @param written The blocks returned by {@link #write(char[][])}
+     * @param sections Must have a char[4096] wherever a block was written
+     */
+    public synchronized void read(int[] written, char[][] sections) {
+        try {
+            for (int i = 0; i < written.length; i++) {
+                int block = written[i];
+                if (block != -1) {
+                    CharBuffer chars = slice(block).asCharBuffer();
+                    chars.get(sections[i]);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read spilled sections", e);
+        } finally {
+            release(written);
+        }
+    }
+
+    /**
+     * Release the blocks of a record without reading it
+     * @param written The blocks returned by {@link #write(char[][])}
+     */
+    public synchronized void release(int[] written) {
+        for (int i = 0; i < written.length; i++) {
+            int block = written[i];
+            if (block == -1) {
+                continue;
+            }
+            written[i] = -1;
+            if (freeCount == free.length) {
+                free = Arrays.copyOf(free, freeCount << 1);
+            }
+            free[freeCount++] = block;
+            live--;
+        }
+        if (live == 0) {
+            // Nothing left in the file, so start again from the beginning
+            blocks = 0;
+            freeCount = 0;
+        }
+    }
+
+    /**
+     * @return The number of bytes in use
+     */
+    public synchronized long getSize() {
+        return (long) live * BLOCK_SIZE;
+    }
+
+    public synchronized boolean isEmpty() {
+        return live == 0;
+    }
+
+    /**
+     * Release the file (it is deleted)
+     */
+    public synchronized void close() {
+        regions.clear();
+        blocks = 0;
+        freeCount = 0;
+        live = 0;
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+            if (raf != null) {
+                raf.close();
+            }
+        } catch (IOException e) {
+            MainUtil.handleError(e);
+        }
+        channel = null;
+        raf = null;
+        // The mapping may outlive the channel until it is garbage collected
+        if (file.exists() && !file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    private int allocate() throws IOException {
+        if (channel == null) {
+            File parent = file.getParentFile();
+            if (parent != null && !parent.exists()) {
+                parent.mkdirs();
+            }
+            raf = new RandomAccessFile(file, "rw");
+            channel = raf.getChannel();
+        }
+        live++;
+        if (freeCount != 0) {
+            return free[--freeCount];
+        }
+        return blocks++;
+    }
+
+    private ByteBuffer slice(int block) throws IOException {
+        int region = block / BLOCKS_PER_REGION;
+        MappedByteBuffer mapped = regions.get(region);
+        if (mapped == null) {
+            mapped = channel.map(FileChannel.MapMode.READ_WRITE, (long) region * REGION_SIZE, REGION_SIZE);
+            regions.put(region, mapped);
+        }
+        ByteBuffer buffer = mapped.duplicate();
+        int offset = (block % BLOCKS_PER_REGION) * BLOCK_SIZE;
+        buffer.limit(offset + BLOCK_SIZE);
+        buffer.position(offset);
+        return buffer.slice();
+    }
+}
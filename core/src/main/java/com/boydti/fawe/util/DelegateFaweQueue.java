@@ -2,10 +2,12 @@ package com.boydti.fawe.util;
 
 import com.boydti.fawe.object.FaweChunk;
 import com.boydti.fawe.object.FaweQueue;
+import com.boydti.fawe.object.QueueStats;
 import com.boydti.fawe.object.RunnableVal2;
 import com.boydti.fawe.object.exception.FaweException;
 import com.sk89q.jnbt.CompoundTag;
 import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.world.biome.BaseBiome;
 import java.io.File;
 import java.util.Collection;
@@ -89,11 +91,56 @@ public class DelegateFaweQueue extends FaweQueue {
         return parent.getChangeTask();
     }
 
+    @Override
+    public DispatchOrder getDispatchOrder() {
+        return parent.getDispatchOrder();
+    }
+
+    @Override
+    public void setDispatchOrder(DispatchOrder order) {
+        parent.setDispatchOrder(order);
+    }
+
     @Override
     public void optimize() {
         parent.optimize();
     }
 
+    @Override
+    public QueueStats getStats() {
+        return parent.getStats();
+    }
+
+    @Override
+    public int getPendingLimit() {
+        return parent.getPendingLimit();
+    }
+
+    @Override
+    public void setPendingLimit(int limit) {
+        parent.setPendingLimit(limit);
+    }
+
+    @Override
+    public boolean awaitCapacity() {
+        return parent.awaitCapacity();
+    }
+
+    @Override
+    public boolean hasWaitingProducers() {
+        return parent.hasWaitingProducers();
+    }
+
+    @Override
+    public void prefetch(Region region) {
+        parent.prefetch(region);
+    }
+
+    @Override
+    public void recycle(FaweChunk chunk) {
+        parent.recycle(chunk);
+    }
+
     @Override
     public boolean setBlock(int x, int y, int z, int id, int data) {
         return parent.setBlock(x, y, z, id, data);
@@ -149,6 +196,11 @@ public class DelegateFaweQueue extends FaweQueue {
         return parent.regenerateChunk(x, z);
     }
 
+    @Override
+    public void beforePlace() {
+        parent.beforePlace();
+    }
+
     @Override
     public void startSet(boolean parallel) {
         parent.startSet(parallel);
@@ -199,6 +251,16 @@ public class DelegateFaweQueue extends FaweQueue {
         return parent.getCombinedId4Data(x, y, z);
     }
 
+    @Override
+    public boolean getSectionSnapshot(int cx, int cy, int cz, char[] snapshot) throws FaweException.FaweChunkLoadException {
+        return parent.getSectionSnapshot(cx, cy, cz, snapshot);
+    }
+
+    @Override
+    public int getChunkSnapshot(int cx, int cz, char[][] snapshot) throws FaweException.FaweChunkLoadException {
+        return parent.getChunkSnapshot(cx, cz, snapshot);
+    }
+
     @Override
     public boolean hasSky() {
         return parent.hasSky();
@@ -234,6 +296,11 @@ public class DelegateFaweQueue extends FaweQueue {
         return parent.size();
     }
 
+    @Override
+    public SetQueue.QueueStage getStage() {
+        return parent.getStage();
+    }
+
     @Override
     public void enqueue() {
         parent.enqueue();
@@ -0,0 +1,205 @@
+package com.boydti.fawe.util;
+
+import com.boydti.fawe.config.Settings;
+import com.boydti.fawe.object.QueueStats;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * The statistics of every queue combined<br>
+ *     - Chunks and blocks per second are over the last 10 seconds<br>
+ *     - Can be registered as an MBean (com.boydti.fawe:type=Stats)
+ */
+public class FaweStats extends QueueStats implements FaweStatsMBean {
+
+    public static final FaweStats IMP = new FaweStats();
+
+    private static final int WINDOW = 10;
+
+    private final AtomicLongArray seconds = new AtomicLongArray(WINDOW);
+    private final AtomicLongArray chunkWindow = new AtomicLongArray(WINDOW);
+    private final AtomicLongArray blockWindow = new AtomicLongArray(WINDOW);
+    private ObjectName name;
+
+    private FaweStats() {
+        super(null);
+    }
+
+    /**
+     * Create the statistics for a new queue
+     * @return
+     */
+    public static QueueStats newQueueStats() {
+        return new QueueStats(IMP);
+    }
+
+    @Override
+    public void addChunk(int blocks, long nanos) {
+        super.addChunk(blocks, nanos);
+        long second = System.currentTimeMillis() / 1000;
+        int slot = (int) (second % WINDOW);
+        long previous = seconds.get(slot);
+        if (previous != second && seconds.compareAndSet(slot, previous, second)) {
+            chunkWindow.set(slot, 0);
+            blockWindow.set(slot, 0);
+        }
+        chunkWindow.incrementAndGet(slot);
+        blockWindow.addAndGet(slot, blocks);
+    }
+
+    @Override
+    public double getChunksPerSecond() {
+        return getRecent(chunkWindow);
+    }
+
+    @Override
+    public double getBlocksPerSecond() {
+        return getRecent(blockWindow);
+    }
+
+    private double getRecent(AtomicLongArray window) {
+        // The current second isn't complete, so use the 10 before it
+        long current = System.currentTimeMillis() / 1000;
+        long total = 0;
+        for (int i = 0; i < WINDOW; i++) {
+            long second = seconds.get(i);
+            if (second < current && second >= current - WINDOW) {
+                total += window.get(i);
+            }
+        }
+        return (double) total / WINDOW;
+    }
+
+    /**
+     * Register the MBean (if enabled)
+     */
+    public synchronized void register() {
+        if (!Settings.STATS.JMX || name != null) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName("com.boydti.fawe:type=Stats");
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(this, objectName);
+                name = objectName;
+            }
+        } catch (Throwable e) {
+            MainUtil.handleError(e);
+        }
+    }
+
+    public synchronized void unregister() {
+        if (name == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        } catch (Throwable e) {
+            MainUtil.handleError(e);
+        }
+        name = null;
+    }
+
+    @Override
+    public int getActiveQueues() {
+        return SetQueue.IMP.getActiveQueues().size();
+    }
+
+    @Override
+    public int getInactiveQueues() {
+        return SetQueue.IMP.getInactiveQueues().size();
+    }
+
+    @Override
+    public long getChunksPlaced() {
+        return getChunks();
+    }
+
+    @Override
+    public long getBlocksPlaced() {
+        return getBlocks();
+    }
+
+    @Override
+    public double getInactiveMeanMs() {
+        return getInactive().getMean();
+    }
+
+    @Override
+    public long getInactive99Ms() {
+        return getInactive().getPercentile(99);
+    }
+
+    @Override
+    public double getActiveMeanMs() {
+        return getActive().getMean();
+    }
+
+    @Override
+    public long getActive99Ms() {
+        return getActive().getPercentile(99);
+    }
+
+    @Override
+    public double getSetComponentsMeanUs() {
+        return getSetComponents().getMean();
+    }
+
+    @Override
+    public long getSetComponents99Us() {
+        return getSetComponents().getPercentile(99);
+    }
+
+    @Override
+    public long getSetComponentsMaxUs() {
+        return getSetComponents().getMax();
+    }
+
+    @Override
+    public double getRelightMeanUs() {
+        return getRelight().getMean();
+    }
+
+    @Override
+    public long getRelight99Us() {
+        return getRelight().getPercentile(99);
+    }
+
+    @Override
+    public double getHistoryFlushMeanUs() {
+        return getHistoryFlush().getMean();
+    }
+
+    @Override
+    public long getHistoryFlush99Us() {
+        return getHistoryFlush().getPercentile(99);
+    }
+
+    @Override
+    public double getChunkLoadMeanUs() {
+        return getChunkLoad().getMean();
+    }
+
+    @Override
+    public long getChunkLoad99Us() {
+        return getChunkLoad().getPercentile(99);
+    }
+
+    @Override
+    public long getChunkLoadCount() {
+        return getChunkLoad().getCount();
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        for (int i = 0; i < WINDOW; i++) {
+            seconds.set(i, 0);
+            chunkWindow.set(i, 0);
+            blockWindow.set(i, 0);
+        }
+    }
+}
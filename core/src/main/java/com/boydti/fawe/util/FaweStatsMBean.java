@@ -0,0 +1,51 @@
+package com.boydti.fawe.util;
+
+/**
+ * The statistics exposed through JMX (see {@link FaweStats})<br>
+ *     - Stage times are in milliseconds<br>
+ *     - Operation times are in microseconds
+ */
+public interface FaweStatsMBean {
+
+    int getActiveQueues();
+
+    int getInactiveQueues();
+
+    long getChunksPlaced();
+
+    long getBlocksPlaced();
+
+    double getChunksPerSecond();
+
+    double getBlocksPerSecond();
+
+    double getInactiveMeanMs();
+
+    long getInactive99Ms();
+
+    double getActiveMeanMs();
+
+    long getActive99Ms();
+
+    double getSetComponentsMeanUs();
+
+    long getSetComponents99Us();
+
+    long getSetComponentsMaxUs();
+
+    double getRelightMeanUs();
+
+    long getRelight99Us();
+
+    double getHistoryFlushMeanUs();
+
+    long getHistoryFlush99Us();
+
+    double getChunkLoadMeanUs();
+
+    long getChunkLoad99Us();
+
+    long getChunkLoadCount();
+
+    void reset();
+}
@@ -6,6 +6,7 @@ public class FaweTimer implements Runnable {
     private int historyIndex = 0;
     private long lastPoll = System.currentTimeMillis();
     private long tickStart = System.currentTimeMillis();
+    private long lastTickLength = 50;
     private final long tickInterval = 5;
     private final double millisPer20Interval = tickInterval * 50 * 20;
     private long tick = 0;
@@ -13,7 +14,9 @@ public class FaweTimer implements Runnable {
 
     @Override
     public void run() {
-        tickStart = System.currentTimeMillis();
+        long now = System.currentTimeMillis();
+        lastTickLength = now - tickStart;
+        tickStart = now;
         tick++;
         if (++tickMod == tickInterval) {
             tickMod = 0;
@@ -53,6 +56,14 @@ public class FaweTimer implements Runnable {
         return tick;
     }
 
+    /**
+     * Get the time in milliseconds between the start of the previous tick and the start of this one
+     * @return
+     */
+    public long getLastTickLength() {
+        return lastTickLength;
+    }
+
     public long getTickMillis() {
         return System.currentTimeMillis() - tickStart;
     }
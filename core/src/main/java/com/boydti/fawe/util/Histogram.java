@@ -0,0 +1,104 @@
+package com.boydti.fawe.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread safe histogram of (non negative) long values<br>
+ *     - Values are counted in buckets which are exponential, with 8 linear sub buckets each (so a percentile is within 12.5%)<br>
+ *     - Recording a value doesn't allocate or lock
+ */
+public class Histogram {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS + 1) << SUB_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(getIndex(value));
+        count.incrementAndGet();
+        total.addAndGet(value);
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value));
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getTotal() {
+        return total.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long amount = count.get();
+        return amount == 0 ? 0 : (double) total.get() / amount;
+    }
+
+    /**
+     * Get the value which a percentage of the recorded values are at or below
+     * @param percentile 0 - 100
+     * @return The upper bound of the bucket the value is in
+     */
+    public long getPercentile(double percentile) {
+        long amount = count.get();
+        if (amount == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(amount * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(getHighest(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        total.set(0);
+        max.set(0);
+    }
+
+    private static int getIndex(long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        int sub = (int) (value >>> shift) & (SUB_COUNT - 1);
+        return ((shift + 1) << SUB_BITS) + sub;
+    }
+
+    private static long getLowest(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int shift = (index >> SUB_BITS) - 1;
+        int sub = index & (SUB_COUNT - 1);
+        return (long) (SUB_COUNT + sub) << shift;
+    }
+
+    private static long getHighest(int index) {
+        if (index + 1 >= BUCKETS) {
+            return Long.MAX_VALUE;
+        }
+        return getLowest(index + 1) - 1;
+    }
+}
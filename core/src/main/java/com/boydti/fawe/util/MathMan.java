@@ -71,6 +71,57 @@ public class MathMan {
         return (int)pair;
     }
 
+    /**
+     * Get the position of a point along a Z-order (Morton) curve<br>
+     *     - Points close on the curve are close in space<br>
+     *     - The result is offset so that it can be compared as a signed long
+     * @param x
+     * @param z
+     * @return
+     */
+    public static long mortonCode(int x, int z) {
+        return (spreadBits(x ^ Integer.MIN_VALUE) | (spreadBits(z ^ Integer.MIN_VALUE) << 1)) ^ Long.MIN_VALUE;
+    }
+
+    private static long spreadBits(int value) {
+        long v = value & 0xFFFFFFFFL;
+        v = (v | (v << 16)) & 0x0000FFFF0000FFFFL;
+        v = (v | (v << 8)) & 0x00FF00FF00FF00FFL;
+        v = (v | (v << 4)) & 0x0F0F0F0F0F0F0F0FL;
+        v = (v | (v << 2)) & 0x3333333333333333L;
+        v = (v | (v << 1)) & 0x5555555555555555L;
+        return v;
+    }
+
+    /**
+     * Get the position of a point along a Hilbert curve<br>
+     *     - Better locality than a Z-order curve (no long jumps between neighbouring points)<br>
+     *     - The result is offset so that it can be compared as a signed long
+     * @param x
+     * @param z
+     * @return
+     */
+    public static long hilbertCode(int x, int z) {
+        long px = (x ^ Integer.MIN_VALUE) & 0xFFFFFFFFL;
+        long pz = (z ^ Integer.MIN_VALUE) & 0xFFFFFFFFL;
+        long d = 0;
+        for (long s = 1L << 31; s > 0; s >>= 1) {
+            int rx = (px & s) != 0 ? 1 : 0;
+            int rz = (pz & s) != 0 ? 1 : 0;
+            d += s * s * ((3 * rx) ^ rz);
+            if (rz == 0) {
+                if (rx == 1) {
+                    px = 0xFFFFFFFFL - px;
+                    pz = 0xFFFFFFFFL - pz;
+                }
+                long tmp = px;
+                px = pz;
+                pz = tmp;
+            }
+        }
+        return d ^ Long.MIN_VALUE;
+    }
+
     public static byte pair16(int x, int y) {
         return (byte) (x + (y << 4));
     }
@@ -1,6 +1,10 @@
 package com.boydti.fawe.util;
 
 import com.boydti.fawe.config.Settings;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -42,6 +46,26 @@ public class MemUtil {
         return size;
     }
 
+    /**
+     * Get the percentage of the maximum heap size which was still in use after the last garbage collection<br>
+     *     - Uses the collection usage of each heap pool, so garbage which hasn't been collected yet isn't counted<br>
+     *     - 0 until a pool has been collected
+     * @return
+     */
+    public static int getUsedPercent() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP || !pool.isValid()) {
+                continue;
+            }
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (usage != null) {
+                used += usage.getUsed();
+            }
+        }
+        return (int) ((used * 100) / Runtime.getRuntime().maxMemory());
+    }
+
     private static BlockingQueue<Runnable> memoryLimitedTasks = new LinkedBlockingQueue<>();
     private static BlockingQueue<Runnable> memoryPlentifulTasks = new LinkedBlockingQueue<>();
 
@@ -3,13 +3,18 @@ package com.boydti.fawe.util;
 import com.boydti.fawe.Fawe;
 import com.boydti.fawe.config.Settings;
 import com.boydti.fawe.object.FaweChunk;
+import com.boydti.fawe.object.FawePlayer;
 import com.boydti.fawe.object.FaweQueue;
 import com.boydti.fawe.object.RunnableVal2;
+import com.sk89q.worldedit.EditSession;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 public class SetQueue {
 
@@ -26,6 +31,11 @@ public class SetQueue {
     private final ConcurrentLinkedDeque<FaweQueue> inactiveQueues;
     private final ConcurrentLinkedDeque<Runnable> tasks;
 
+    /**
+     * Controls how long can be spent placing blocks each tick
+     */
+    private final TickBudget budget = new TickBudget();
+
     /**
      * Used to calculate elapsed time in milliseconds and ensure block placement doesn't lag the server
      */
@@ -86,46 +96,226 @@ public class SetQueue {
                         return;
                     }
                 }
-                SET_TASK.value1 = Settings.QUEUE.EXTRA_TIME_MS + 50 + Math.min((50 + SetQueue.this.last) - (SetQueue.this.last = System.currentTimeMillis()), SetQueue.this.secondLast - System.currentTimeMillis());
-                SET_TASK.value2 = getNextQueue();
-                if (SET_TASK.value2 == null) {
-                    return;
+                long free;
+                if (Settings.QUEUE.BUDGET.ADAPTIVE) {
+                    free = budget.next(Fawe.get().getTimer());
+                    SetQueue.this.last = System.currentTimeMillis();
+                } else {
+                    free = Settings.QUEUE.EXTRA_TIME_MS + 50 + Math.min((50 + SetQueue.this.last) - (SetQueue.this.last = System.currentTimeMillis()), SetQueue.this.secondLast - System.currentTimeMillis());
                 }
                 if (Thread.currentThread() != Fawe.get().getMainThread()) {
                     throw new IllegalStateException("This shouldn't be possible for placement to occur off the main thread");
                 }
-                // Disable the async catcher as it can't discern async vs parallel
-                boolean parallel = Settings.QUEUE.PARALLEL_THREADS > 1;
-                SET_TASK.value2.startSet(parallel);
-                try {
-                    if (Settings.QUEUE.PARALLEL_THREADS <= 1) {
-                        SET_TASK.run();
-                    } else {
-                        ArrayList<Thread> threads = new ArrayList<Thread>();
-                        for (int i = 0; i < Settings.QUEUE.PARALLEL_THREADS; i++) {
-                            threads.add(new Thread(SET_TASK));
-                        }
-                        for (Thread thread : threads) {
-                            thread.start();
-                        }
-                        for (Thread thread : threads) {
-                            try {
-                                thread.join();
-                            } catch (InterruptedException e) {
-                                MainUtil.handleError(e);
-                            }
-                        }
+                if ((Settings.QUEUE.PRIORITY.FAIR_SHARE && activeQueues.size() > 1) || (!activeQueues.isEmpty() && hasBlockedQueue())) {
+                    placeFairly(free);
+                } else {
+                    FaweQueue queue = getNextQueue();
+                    if (queue != null) {
+                        place(queue, free);
                     }
-                } catch (Throwable e) {
-                    MainUtil.handleError(e);
-                } finally {
-                    // Enable it again (note that we are still on the main thread)
-                    SET_TASK.value2.endSet(parallel);
                 }
+                budget.setUsed(System.currentTimeMillis() - SetQueue.this.last);
             }
         }, 1);
     }
 
+    /**
+     * The scheduling state of an active queue
+     */
+    private static class QueueShare {
+        /**
+         * When the queue was enqueued
+         */
+        private final long queued;
+        private int priority = -1;
+        private long deficit;
+
+        private QueueShare(long queued) {
+            this.queued = queued;
+        }
+    }
+
+    private final ConcurrentHashMap<FaweQueue, QueueShare> shares = new ConcurrentHashMap<>();
+    private int rotation;
+
+    /**
+     * Place blocks from a queue until the placement time (measured from the start of the tick) is used up
+     * @param queue
+     * @param allowed
+     */
+    private void place(FaweQueue queue, long allowed) {
+        SET_TASK.value1 = allowed;
+        SET_TASK.value2 = queue;
+        // Disable the async catcher as it can't discern async vs parallel
+        boolean parallel = Settings.QUEUE.PARALLEL_THREADS > 1;
+        queue.beforePlace();
+        queue.startSet(parallel);
+        try {
+            runSetTask(parallel);
+        } catch (Throwable e) {
+            MainUtil.handleError(e);
+        } finally {
+            // Enable it again (note that we are still on the main thread)
+            queue.endSet(parallel);
+        }
+    }
+
+    /**
+     * Split the placement time for this tick between all the active queues (deficit round robin)<br>
+     *     - Inactive queues with producers waiting for them to be placed from (see FaweQueue#awaitCapacity) are included, but not activated<br>
+     *     - Each queue is given time in proportion to its weight<br>
+     *     - Time a queue overruns by (e.g. a slow chunk) is taken from its share next tick<br>
+     *     - The starting queue rotates each tick so no queue always goes first
+     * @param free
+     */
+    private void placeFairly(long free) {
+        long now = System.currentTimeMillis();
+        ArrayList<FaweQueue> queues = new ArrayList<>(activeQueues.size());
+        int[] weights = new int[activeQueues.size() + inactiveQueues.size()];
+        long totalWeight = 0;
+        for (FaweQueue queue : activeQueues) {
+            if (queue.size() == 0) {
+                activeQueues.remove(queue);
+                shares.remove(queue);
+                setStage(queue, QueueStage.NONE);
+            } else if (queues.size() < weights.length) {
+                int weight = getWeight(queue, now);
+                weights[queues.size()] = weight;
+                totalWeight += weight;
+                queues.add(queue);
+            }
+        }
+        for (FaweQueue queue : inactiveQueues) {
+            if (queue.hasWaitingProducers() && queue.size() > 0 && queues.size() < weights.length) {
+                int weight = getWeight(queue, now);
+                weights[queues.size()] = weight;
+                totalWeight += weight;
+                queues.add(queue);
+            }
+        }
+        if (queues.size() == 1) {
+            FaweQueue queue = queues.get(0);
+            queue.setModified(now);
+            place(queue, free);
+            return;
+        }
+        if (queues.isEmpty()) {
+            FaweQueue queue = getNextQueue();
+            if (queue != null) {
+                place(queue, free);
+            }
+            return;
+        }
+        int size = queues.size();
+        int start = (rotation = (rotation + 1) % size);
+        for (int i = 0; i < size; i++) {
+            int index = (start + i) % size;
+            FaweQueue queue = queues.get(index);
+            QueueShare share = getShare(queue);
+            share.deficit = Math.min(free, share.deficit + (free * weights[index]) / totalWeight);
+            long elapsed = System.currentTimeMillis() - last;
+            long remaining = free - elapsed;
+            if (remaining <= 0) {
+                break;
+            }
+            if (share.deficit <= 0) {
+                continue;
+            }
+            long begin = System.currentTimeMillis();
+            queue.setModified(begin);
+            place(queue, elapsed + Math.min(share.deficit, remaining));
+            share.deficit -= System.currentTimeMillis() - begin;
+        }
+    }
+
+    /**
+     * If an inactive queue has producers waiting for it to be placed from
+     * @return
+     */
+    private boolean hasBlockedQueue() {
+        for (FaweQueue queue : inactiveQueues) {
+            if (queue.hasWaitingProducers() && queue.size() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private QueueShare getShare(FaweQueue queue) {
+        QueueShare share = shares.get(queue);
+        if (share == null) {
+            // Not enqueued through enqueue(queue), so the age isn't known (it isn't treated as new)
+            share = new QueueShare(0);
+            QueueShare existing = shares.putIfAbsent(queue, share);
+            if (existing != null) {
+                share = existing;
+            }
+        }
+        return share;
+    }
+
+    /**
+     * Get the scheduling weight of a queue<br>
+     *     - The highest fawe.priority.<n> permission of the players who own its edits (1 by default)<br>
+     *     - Doubled while the edit is new (since it was enqueued), so small interactive edits finish quickly
+     * @param queue
+     * @param now
+     * @return
+     */
+    private int getWeight(FaweQueue queue, long now) {
+        QueueShare share = getShare(queue);
+        if (share.priority == -1) {
+            int priority = 1;
+            for (EditSession session : queue.getEditSessions()) {
+                FawePlayer player = session.getPlayer();
+                if (player == null) {
+                    continue;
+                }
+                for (int i = Settings.QUEUE.PRIORITY.MAX; i > priority; i--) {
+                    if (player.hasPermission("fawe.priority." + i)) {
+                        priority = i;
+                        break;
+                    }
+                }
+            }
+            share.priority = priority;
+        }
+        if (now - share.queued < Settings.QUEUE.PRIORITY.NEW_EDIT_MS) {
+            return share.priority << 1;
+        }
+        return share.priority;
+    }
+
+    /**
+     * Run the SET_TASK on the current thread, or on each worker of the shared pool<br>
+     *     - Workers pull chunks from the same queue, so a slow chunk doesn't hold up the others<br>
+     *     - Blocks until every worker has finished (the time budget is still SET_TASK.value1)
+     * @param parallel
+     */
+    private void runSetTask(boolean parallel) {
+        if (!parallel) {
+            SET_TASK.run();
+            return;
+        }
+        ForkJoinPool pool = TaskManager.IMP.getPublicForkJoinPool();
+        int threads = pool.getParallelism();
+        ArrayList<ForkJoinTask<?>> workers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            workers.add(pool.submit(SET_TASK));
+        }
+        for (ForkJoinTask<?> worker : workers) {
+            try {
+                worker.join();
+            } catch (Throwable e) {
+                MainUtil.handleError(e);
+            }
+        }
+    }
+
+    public TickBudget getBudget() {
+        return budget;
+    }
+
     public QueueStage getStage(FaweQueue queue) {
         if (activeQueues.contains(queue)) {
             return QueueStage.ACTIVE;
@@ -151,13 +341,31 @@ public class SetQueue {
         inactiveQueues.remove(queue);
         if (queue.size() > 0 && !activeQueues.contains(queue)) {
             queue.optimize();
+            shares.put(queue, new QueueShare(System.currentTimeMillis()));
             activeQueues.add(queue);
+            setStage(queue, QueueStage.ACTIVE);
+        } else if (!activeQueues.contains(queue)) {
+            shares.remove(queue);
+            setStage(queue, QueueStage.NONE);
         }
     }
 
     public void dequeue(FaweQueue queue) {
         inactiveQueues.remove(queue);
         activeQueues.remove(queue);
+        shares.remove(queue);
+        setStage(queue, QueueStage.NONE);
+    }
+
+    /**
+     * Record the time a queue spent in its previous stage
+     * @param queue
+     * @param stage
+     */
+    private void setStage(FaweQueue queue, QueueStage stage) {
+        if (Settings.STATS.ENABLED) {
+            queue.getStats().setStage(stage);
+        }
     }
 
     public Collection<FaweQueue> getAllQueues() {
@@ -179,46 +387,21 @@ public class SetQueue {
         FaweQueue queue = Fawe.imp().getNewQueue(world, fast);
         if (autoqueue) {
             inactiveQueues.add(queue);
+            setStage(queue, QueueStage.INACTIVE);
         }
         return queue;
     }
 
     public void flush(FaweQueue queue) {
-        SET_TASK.value1 = Long.MAX_VALUE;
-        SET_TASK.value2 = queue;
-        if (SET_TASK.value2 == null) {
+        if (queue == null) {
             return;
         }
         if (Thread.currentThread() != Fawe.get().getMainThread()) {
             throw new IllegalStateException("Must be flushed on the main thread!");
         }
-        // Disable the async catcher as it can't discern async vs parallel
-        boolean parallel = Settings.QUEUE.PARALLEL_THREADS > 1;
-        SET_TASK.value2.startSet(parallel);
         try {
-            if (!parallel) {
-                SET_TASK.run();
-            } else {
-                ArrayList<Thread> threads = new ArrayList<Thread>();
-                for (int i = 0; i < Settings.QUEUE.PARALLEL_THREADS; i++) {
-                    threads.add(new Thread(SET_TASK));
-                }
-                for (Thread thread : threads) {
-                    thread.start();
-                }
-                for (Thread thread : threads) {
-                    try {
-                        thread.join();
-                    } catch (InterruptedException e) {
-                        MainUtil.handleError(e);
-                    }
-                }
-            }
-        } catch (Throwable e) {
-            MainUtil.handleError(e);
+            place(queue, Long.MAX_VALUE);
         } finally {
-            // Enable it again (note that we are still on the main thread)
-            SET_TASK.value2.endSet(parallel);
             dequeue(queue);
         }
     }
@@ -232,6 +415,10 @@ public class SetQueue {
                 return queue;
             } else {
                 activeQueues.poll();
+                if (queue != null) {
+                    shares.remove(queue);
+                    setStage(queue, QueueStage.NONE);
+                }
             }
         }
         int size = inactiveQueues.size();
@@ -247,6 +434,8 @@ public class SetQueue {
                     if (queue.size() == 0) {
                         if (age > Settings.QUEUE.DISCARD_AFTER_MS) {
                             iter.remove();
+                            shares.remove(queue);
+                            setStage(queue, QueueStage.NONE);
                         }
                         continue;
                     }
@@ -278,6 +467,8 @@ public class SetQueue {
                     activeQueues.add(queue);
                     return set;
                 }
+                shares.remove(queue);
+                setStage(queue, QueueStage.NONE);
             }
         }
         if (inactiveQueues.size() > 0) {
@@ -297,6 +488,9 @@ public class SetQueue {
                     }
                     if (diff > Settings.QUEUE.DISCARD_AFTER_MS) {
                         // These edits never finished
+                        for (FaweQueue queue : tmp) {
+                            setStage(queue, QueueStage.NONE);
+                        }
                         inactiveQueues.clear();
                     }
                     return null;
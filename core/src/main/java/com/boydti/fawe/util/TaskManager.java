@@ -4,8 +4,11 @@ import com.boydti.fawe.Fawe;
 import com.boydti.fawe.config.Settings;
 import com.boydti.fawe.object.FaweQueue;
 import com.boydti.fawe.object.RunnableVal;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.atomic.AtomicBoolean;
 import javax.annotation.Nullable;
 
@@ -13,6 +16,9 @@ public abstract class TaskManager {
 
     public static TaskManager IMP;
 
+    private ForkJoinPool pool;
+    private ForkJoinPool backgroundPool;
+
     /**
      * Run a repeating task on the main thread
      * @param r
@@ -64,7 +70,6 @@ public abstract class TaskManager {
         int numRuns = runnables.size();
         int amountPerThread = 1 + numRuns / numThreads;
         final Runnable[][] split = new Runnable[numThreads][amountPerThread];
-        Thread[] threads = new Thread[numThreads];
         int i = 0;
         int j = 0;
         for (Runnable run : runnables) {
@@ -74,9 +79,11 @@ public abstract class TaskManager {
                 j++;
             }
         }
-        for (i = 0; i < threads.length; i++) {
+        ForkJoinPool pool = getPublicForkJoinPool();
+        ArrayList<ForkJoinTask<?>> tasks = new ArrayList<>(numThreads);
+        for (i = 0; i < split.length; i++) {
             final Runnable[] toRun = split[i];
-            Thread thread = threads[i] = new Thread(new Runnable() {
+            tasks.add(pool.submit(new Runnable() {
                 @Override
                 public void run() {
                     for (int j = 0; j < toRun.length; j++) {
@@ -86,17 +93,50 @@ public abstract class TaskManager {
                         }
                     }
                 }
-            });
-            thread.start();
+            }));
         }
-        for (Thread thread : threads) {
+        for (ForkJoinTask<?> task : tasks) {
             try {
-                thread.join();
-            } catch (InterruptedException e) {
-                e.printStackTrace();
+                task.join();
+            } catch (Throwable e) {
+                MainUtil.handleError(e);
+            }
+        }
+    }
+
+    /**
+     * Get the shared worker pool used for parallel block placement and other bulk tasks<br>
+     *     - The worker threads are reused between ticks rather than created for each task<br>
+     *     - Idle workers steal queued work from busy ones<br>
+     *     - The pool is recreated if the configured number of parallel threads changes
+     * @return
+     */
+    public synchronized ForkJoinPool getPublicForkJoinPool() {
+        int parallelism = Math.max(1, Settings.QUEUE.PARALLEL_THREADS);
+        if (pool == null || pool.getParallelism() != parallelism) {
+            if (pool != null) {
+                pool.shutdown();
             }
+            pool = new ForkJoinPool(parallelism);
         }
+        return pool;
+    }
 
+    /**
+     * Get a worker pool for long running background work (e.g. reading or writing region files)<br>
+     *     - Separate from the public pool, which the main thread waits on when placing blocks, so it never delays a tick<br>
+     *     - The pool is recreated if the configured number of parallel threads changes
+     * @return
+     */
+    public synchronized ForkJoinPool getBackgroundForkJoinPool() {
+        int parallelism = Math.max(1, Settings.QUEUE.PARALLEL_THREADS);
+        if (backgroundPool == null || backgroundPool.getParallelism() != parallelism) {
+            if (backgroundPool != null) {
+                backgroundPool.shutdown();
+            }
+            backgroundPool = new ForkJoinPool(parallelism);
+        }
+        return backgroundPool;
     }
 
     /**
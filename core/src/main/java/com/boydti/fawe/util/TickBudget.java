@@ -0,0 +1,109 @@
+package com.boydti.fawe.util;
+
+import com.boydti.fawe.config.Settings;
+
+/**
+ * Decides how many milliseconds the SetQueue may spend placing blocks each tick<br>
+ *     - Additive increase while ticks finish within the target tick length<br>
+ *     - Multiplicative decrease as soon as ticks run long (e.g. another plugin spikes)<br>
+ *     - When decreasing, the time the rest of the server needed last tick is taken into account
+ */
+public class TickBudget {
+
+    public enum Reason {
+        STARTING,
+        UNDER_TARGET,
+        OVER_TARGET,
+        SPIKE,
+        LOW_TPS,
+        COOLDOWN,
+    }
+
+    private double budget;
+    private double averageTick;
+    private long lastTick;
+    private long lastUsed;
+    private int cooldown;
+    private long increases;
+    private long decreases;
+    private Reason reason = Reason.STARTING;
+
+    public TickBudget() {
+        this.averageTick = 50;
+        this.budget = Math.max(Settings.QUEUE.BUDGET.MIN_MS, Math.min(Settings.QUEUE.BUDGET.MAX_MS, 20));
+    }
+
+    /**
+     * Calculate the placement time for the current tick
+     * @param timer The timer (provides the last tick length and TPS)
+     * @return The time in milliseconds
+     */
+    public synchronized long next(FaweTimer timer) {
+        int target = Settings.QUEUE.BUDGET.TARGET_MSPT;
+        int min = Settings.QUEUE.BUDGET.MIN_MS;
+        int max = Math.max(min, Settings.QUEUE.BUDGET.MAX_MS);
+        long tick = timer.getLastTickLength();
+        lastTick = tick;
+        averageTick = averageTick * 0.8 + tick * 0.2;
+        if (cooldown > 0) {
+            cooldown--;
+        }
+        if (tick > target << 1 || averageTick > target + 2) {
+            if (cooldown == 0) {
+                // The rest of the server needed this much time last tick
+                long other = Math.max(0, tick - lastUsed);
+                budget = Math.min(budget * 0.5, target - other);
+                cooldown = 3;
+                decreases++;
+                reason = tick > target << 1 ? Reason.SPIKE : Reason.OVER_TARGET;
+            } else {
+                reason = Reason.COOLDOWN;
+            }
+        } else if (timer.getTPS() < 19.5) {
+            // Hold the budget until the TPS has recovered
+            reason = Reason.LOW_TPS;
+        } else if (averageTick <= target + 1) {
+            budget += Settings.QUEUE.BUDGET.INCREASE_MS;
+            increases++;
+            reason = Reason.UNDER_TARGET;
+        }
+        budget = Math.max(min, Math.min(max, budget));
+        return (long) budget;
+    }
+
+    /**
+     * Record how long placement actually took this tick
+     * @param used time in milliseconds
+     */
+    public synchronized void setUsed(long used) {
+        this.lastUsed = used;
+    }
+
+    public synchronized long getBudget() {
+        return (long) budget;
+    }
+
+    public synchronized long getLastTick() {
+        return lastTick;
+    }
+
+    public synchronized double getAverageTick() {
+        return averageTick;
+    }
+
+    public synchronized long getLastUsed() {
+        return lastUsed;
+    }
+
+    public synchronized long getIncreases() {
+        return increases;
+    }
+
+    public synchronized long getDecreases() {
+        return decreases;
+    }
+
+    public synchronized Reason getReason() {
+        return reason;
+    }
+}
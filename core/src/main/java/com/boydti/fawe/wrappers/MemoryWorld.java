@@ -0,0 +1,239 @@
+package com.boydti.fawe.wrappers;
+
+import com.boydti.fawe.FaweCache;
+import com.boydti.fawe.example.MemoryChunk;
+import com.boydti.fawe.example.MemoryFaweQueue;
+import com.boydti.fawe.util.MathMan;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.MaxChangedBlocksException;
+import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.Vector2D;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.blocks.BaseBlock;
+import com.sk89q.worldedit.blocks.BaseItemStack;
+import com.sk89q.worldedit.entity.BaseEntity;
+import com.sk89q.worldedit.entity.Entity;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.util.Location;
+import com.sk89q.worldedit.util.TreeGenerator;
+import com.sk89q.worldedit.world.AbstractWorld;
+import com.sk89q.worldedit.world.biome.BaseBiome;
+import com.sk89q.worldedit.world.registry.LegacyWorldData;
+import com.sk89q.worldedit.world.registry.WorldData;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+
+/**
+ * A world which only exists on the heap, so that edit sessions, clipboards and history can be used without a server<br>
+ *     - Chunks are created (empty) when something is placed in them<br>
+ *     - Edit sessions for this world use a {@link MemoryFaweQueue}, which places blocks when the session is flushed<br>
+ *     - Entities aren't stored
+ */
+public class MemoryWorld extends AbstractWorld {
+
+    private final String name;
+    private final boolean sky;
+    protected final ConcurrentHashMap<Long, MemoryChunk> chunks = new ConcurrentHashMap<>();
+
+    public MemoryWorld(String name) {
+        this(name, true);
+    }
+
+    public MemoryWorld(String name, boolean sky) {
+        this.name = name;
+        this.sky = sky;
+    }
+
+    /**
+     * Create a queue for this world
+     * @return
+     */
+    public MemoryFaweQueue newQueue() {
+        return new MemoryFaweQueue(this);
+    }
+
+    public boolean hasSky() {
+        return sky;
+    }
+
+    /**
+     * Get a chunk
+     * @param cx
+     * @param cz
+     * @param create If an empty chunk should be created if it doesn't exist
+     * @return The chunk, or null
+     */
+    public MemoryChunk getChunk(int cx, int cz, boolean create) {
+        long pair = MathMan.pairInt(cx, cz);
+        MemoryChunk chunk = chunks.get(pair);
+        if (chunk == null && create) {
+            chunk = new MemoryChunk(cx, cz, sky);
+            MemoryChunk previous = chunks.putIfAbsent(pair, chunk);
+            if (previous != null) {
+                chunk = previous;
+            }
+        }
+        return chunk;
+    }
+
+    public void removeChunk(int cx, int cz) {
+        chunks.remove(MathMan.pairInt(cx, cz));
+    }
+
+    public Collection<MemoryChunk> getChunks() {
+        return Collections.unmodifiableCollection(chunks.values());
+    }
+
+    /**
+     * Remove every chunk
+     */
+    public void clear() {
+        chunks.clear();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public BaseBlock getBlock(Vector position) {
+        int y = position.getBlockY();
+        if (y < 0 || y > 255) {
+            return EditSession.nullBlock;
+        }
+        int x = position.getBlockX();
+        int z = position.getBlockZ();
+        MemoryChunk chunk = getChunk(x >> 4, z >> 4, false);
+        if (chunk == null) {
+            return EditSession.nullBlock;
+        }
+        int combined = chunk.getCombinedId(x & 15, y, z & 15);
+        BaseBlock block = FaweCache.CACHE_BLOCK[combined];
+        CompoundTag tile = chunk.tiles.get(MemoryChunk.getIndex(x & 15, y, z & 15));
+        if (tile != null) {
+            block = new BaseBlock(block.getId(), block.getData(), tile);
+        }
+        return block;
+    }
+
+    @Override
+    public BaseBlock getLazyBlock(Vector position) {
+        return getBlock(position);
+    }
+
+    @Override
+    public boolean setBlock(Vector position, BaseBlock block, boolean notifyAndLight) throws WorldEditException {
+        int y = position.getBlockY();
+        if (y < 0 || y > 255) {
+            return false;
+        }
+        int x = position.getBlockX();
+        int z = position.getBlockZ();
+        MemoryChunk chunk = getChunk(x >> 4, z >> 4, true);
+        chunk.setCombinedId(x & 15, y, z & 15, FaweCache.getCombined(block));
+        int index = MemoryChunk.getIndex(x & 15, y, z & 15);
+        CompoundTag tile = block.getNbtData();
+        if (tile != null) {
+            chunk.tiles.put(index, tile);
+        } else {
+            chunk.tiles.remove(index);
+        }
+        return true;
+    }
+
+    @Override
+    public BaseBiome getBiome(Vector2D position) {
+        int x = position.getBlockX();
+        int z = position.getBlockZ();
+        MemoryChunk chunk = getChunk(x >> 4, z >> 4, false);
+        if (chunk == null) {
+            return EditSession.nullBiome;
+        }
+        return new BaseBiome(chunk.biomes[((z & 15) << 4) | (x & 15)] & 0xFF);
+    }
+
+    @Override
+    public boolean setBiome(Vector2D position, BaseBiome biome) {
+        int x = position.getBlockX();
+        int z = position.getBlockZ();
+        getChunk(x >> 4, z >> 4, true).biomes[((z & 15) << 4) | (x & 15)] = (byte) biome.getId();
+        return true;
+    }
+
+    @Override
+    public int getBlockLightLevel(Vector position) {
+        int y = position.getBlockY();
+        if (y < 0 || y > 255) {
+            return 0;
+        }
+        int x = position.getBlockX();
+        int z = position.getBlockZ();
+        MemoryChunk chunk = getChunk(x >> 4, z >> 4, false);
+        if (chunk == null) {
+            return sky ? 15 : 0;
+        }
+        MemoryChunk.Section section = chunk.sections[y >> 4];
+        if (section == null) {
+            return sky ? 15 : 0;
+        }
+        int index = FaweCache.CACHE_J[y][x & 15][z & 15];
+        return Math.max(section.getSkyLight(index), section.getBlockLight(index));
+    }
+
+    @Override
+    public boolean clearContainerBlockContents(Vector position) {
+        return false;
+    }
+
+    @Override
+    public void dropItem(Vector position, BaseItemStack item) {}
+
+    @Override
+    public boolean regenerate(Region region, EditSession session) {
+        for (Vector2D chunk : region.getChunks()) {
+            removeChunk(chunk.getBlockX(), chunk.getBlockZ());
+        }
+        return true;
+    }
+
+    @Override
+    public boolean generateTree(TreeGenerator.TreeType type, EditSession editSession, Vector position) throws MaxChangedBlocksException {
+        return false;
+    }
+
+    @Override
+    public WorldData getWorldData() {
+        return LegacyWorldData.getInstance();
+    }
+
+    @Override
+    public List<? extends Entity> getEntities(Region region) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public List<? extends Entity> getEntities() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    @Nullable
+    public Entity createEntity(Location location, BaseEntity entity) {
+        return null;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof MemoryWorld && ((MemoryWorld) other).name.equals(name);
+    }
+
+    @Override
+    public int hashCode() {
+        return name.hashCode();
+    }
+}
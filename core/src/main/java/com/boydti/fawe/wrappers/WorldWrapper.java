@@ -1,11 +1,13 @@
 package com.boydti.fawe.wrappers;
 
+import com.boydti.fawe.Fawe;
 import com.boydti.fawe.FaweCache;
 import com.boydti.fawe.object.FaweQueue;
 import com.boydti.fawe.object.RunnableVal;
 import com.boydti.fawe.object.changeset.FaweChangeSet;
 import com.boydti.fawe.object.extent.FaweRegionExtent;
 import com.boydti.fawe.util.MainUtil;
+import com.boydti.fawe.util.SetQueue;
 import com.boydti.fawe.util.TaskManager;
 import com.sk89q.worldedit.BlockVector2D;
 import com.sk89q.worldedit.EditSession;
@@ -53,6 +55,21 @@ public class WorldWrapper extends LocalWorld {
         return parent instanceof WorldWrapper ? ((WorldWrapper) parent).getParent() : parent;
     }
 
+    /**
+     * Create a queue for an edit in this world<br>
+     *     - A {@link MemoryWorld} has no server, so it supplies its own queue (placed when flushed)
+     * @param fast
+     * @param autoqueue
+     * @return
+     */
+    public FaweQueue newQueue(boolean fast, boolean autoqueue) {
+        AbstractWorld world = getParent();
+        if (world instanceof MemoryWorld) {
+            return ((MemoryWorld) world).newQueue();
+        }
+        return SetQueue.IMP.getNewQueue(Fawe.imp().getWorldName(this), fast, autoqueue);
+    }
+
     @Override
     public boolean useItem(Vector position, BaseItem item, Direction face) {
         return parent.useItem(position, item, face);
@@ -370,6 +387,9 @@ public class WorldWrapper extends LocalWorld {
 
     @Override
     public List<? extends Entity> getEntities(final Region region) {
+        if (parent instanceof MemoryWorld) {
+            return parent.getEntities(region);
+        }
         return TaskManager.IMP.sync(new RunnableVal<List<? extends Entity>>() {
             @Override
             public void run(List<? extends Entity> value) {
@@ -380,6 +400,9 @@ public class WorldWrapper extends LocalWorld {
 
     @Override
     public List<? extends Entity> getEntities() {
+        if (parent instanceof MemoryWorld) {
+            return parent.getEntities();
+        }
         return TaskManager.IMP.sync(new RunnableVal<List<? extends Entity>>() {
             @Override
             public void run(List<? extends Entity> value) {
@@ -119,6 +119,7 @@ import com.sk89q.worldedit.world.World;
 import com.sk89q.worldedit.world.biome.BaseBiome;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -253,7 +254,7 @@ public class EditSession implements Extent {
         this.blockBag = blockBag;
         this.originalLimit = limit;
         this.limit = limit.copy();
-        this.queue = SetQueue.IMP.getNewQueue(Fawe.imp().getWorldName(world), fastmode, autoQueue);
+        this.queue = ((WorldWrapper) world).newQueue(fastmode, autoQueue);
         queue.addEditSession(this);
         this.bypassAll = wrapExtent(new FastWorldEditExtent(world, queue), bus, event, Stage.BEFORE_CHANGE);
         this.bypassHistory = (this.extent = wrapExtent(bypassAll, bus, event, Stage.BEFORE_REORDER));
@@ -386,7 +387,7 @@ public class EditSession implements Extent {
      */
     public void dequeue() {
         if (queue != null) {
-            SetQueue.IMP.dequeue(queue);
+            queue.dequeue();
         }
     }
 
@@ -1103,13 +1104,20 @@ public class EditSession implements Extent {
             queue.dequeue();
             return;
         }
-        if (Fawe.get().isMainThread()) {
-            SetQueue.IMP.flush(queue);
-        } else {
-            queue.flush();
+        // A queue can be placed as soon as it's enqueued (e.g. a MemoryFaweQueue)
+        if (queue.size() > 0) {
+            if (Fawe.get() != null && Fawe.get().isMainThread()) {
+                SetQueue.IMP.flush(queue);
+            } else {
+                queue.flush();
+            }
         }
         if (getChangeSet() != null) {
+            long start = System.nanoTime();
             ((FaweChangeSet) getChangeSet()).flush();
+            if (Settings.STATS.ENABLED) {
+                queue.getStats().addHistoryFlush(System.nanoTime() - start);
+            }
         }
     }
 
@@ -1136,7 +1144,18 @@ public class EditSession implements Extent {
     }
 
     public int countBlock(final Region region, final boolean[] ids) {
+        queue.prefetch(region);
         int i = 0;
+        if (region instanceof CuboidRegion) {
+            final int[] counts = this.getCombinedIdCounts((CuboidRegion) region);
+            for (int combined = 0; combined < counts.length; combined++) {
+                final int id = combined >> 4;
+                if (counts[combined] != 0 && id < ids.length && ids[id]) {
+                    i += counts[combined];
+                }
+            }
+            return i;
+        }
         for (final Vector pt : region) {
             final int id = this.getBlockType(pt);
             if (ids[id]) {
@@ -1146,6 +1165,69 @@ public class EditSession implements Extent {
         return i;
     }
 
+    /**
+     * Count the combined ids in a cuboid region, copying a section at a time from the queue
+     * (rather than reading each block)
+     *
+     * @param region the region
+     * @return the number of blocks, indexed by combined id
+     */
+    private int[] getCombinedIdCounts(final CuboidRegion region) {
+        final int[] counts = new int[Character.MAX_VALUE + 1];
+        final char[] snapshot = new char[4096];
+        final Vector min = region.getMinimumPoint();
+        final Vector max = region.getMaximumPoint();
+        final int minX = min.getBlockX();
+        final int minY = min.getBlockY();
+        final int minZ = min.getBlockZ();
+        final int maxX = max.getBlockX();
+        final int maxY = max.getBlockY();
+        final int maxZ = max.getBlockZ();
+        for (int cx = minX >> 4; cx <= maxX >> 4; cx++) {
+            final int x0 = Math.max(minX, cx << 4);
+            final int x1 = Math.min(maxX, (cx << 4) + 15);
+            for (int cz = minZ >> 4; cz <= maxZ >> 4; cz++) {
+                final int z0 = Math.max(minZ, cz << 4);
+                final int z1 = Math.min(maxZ, (cz << 4) + 15);
+                for (int cy = minY >> 4; cy <= maxY >> 4; cy++) {
+                    final int y0 = Math.max(minY, cy << 4);
+                    final int y1 = Math.min(maxY, (cy << 4) + 15);
+                    final int volume = (x1 - x0 + 1) * (y1 - y0 + 1) * (z1 - z0 + 1);
+                    if (!limit.MAX_CHECKS(volume)) {
+                        throw new FaweException(BBC.WORLDEDIT_CANCEL_REASON_MAX_CHECKS);
+                    }
+                    boolean loaded;
+                    if (cy < 0 || cy > 15) {
+                        // Outside the world
+                        Arrays.fill(snapshot, (char) 0);
+                        loaded = true;
+                    } else {
+                        try {
+                            loaded = queue.getSectionSnapshot(cx, cy, cz, snapshot);
+                        } catch (FaweException ignore) {
+                            loaded = false;
+                        }
+                    }
+                    if (!loaded) {
+                        this.debug(BBC.WORLDEDIT_FAILED_LOAD_CHUNK, cx, cz);
+                        counts[0] += volume;
+                        continue;
+                    }
+                    for (int y = y0; y <= y1; y++) {
+                        final int yIndex = (y & 15) << 8;
+                        for (int z = z0; z <= z1; z++) {
+                            final int index = yIndex | ((z & 15) << 4);
+                            for (int x = x0; x <= x1; x++) {
+                                counts[snapshot[index | (x & 15)]]++;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return counts;
+    }
+
     /**
      * Count the number of blocks of a list of types in a region.
      *
@@ -1617,6 +1699,7 @@ public class EditSession implements Extent {
         checkArgument(count >= 1, "count >= 1 required");
         final Vector size = region.getMaximumPoint().subtract(region.getMinimumPoint()).add(1, 1, 1);
         final Vector to = region.getMinimumPoint();
+        queue.prefetch(region);
         final ForwardExtentCopy copy = new ForwardExtentCopy(EditSession.this, region, EditSession.this, to);
         copy.setRepetitions(count);
         copy.setTransform(new AffineTransform().translate(dir.multiply(size)));
@@ -1666,6 +1749,7 @@ public class EditSession implements Extent {
         };
 
         // Copy to a buffer so we don't destroy our original before we can copy all the blocks from it
+        queue.prefetch(region);
         final ForgetfulExtentBuffer buffer = new ForgetfulExtentBuffer(EditSession.this, new RegionMask(region));
         final ForwardExtentCopy copy = new ForwardExtentCopy(EditSession.this, region, buffer, region.getMinimumPoint());
         copy.setTransform(new AffineTransform().translate(dir.multiply(distance)));
@@ -2280,34 +2364,18 @@ public class EditSession implements Extent {
     public List<Countable<Integer>> getBlockDistribution(final Region region) {
         final List<Countable<Integer>> distribution = new ArrayList<Countable<Integer>>();
         final Map<Integer, Countable<Integer>> map = new HashMap<Integer, Countable<Integer>>();
+        queue.prefetch(region);
 
         if (region instanceof CuboidRegion) {
             // Doing this for speed
-            final Vector min = region.getMinimumPoint();
-            final Vector max = region.getMaximumPoint();
-
-            final int minX = min.getBlockX();
-            final int minY = min.getBlockY();
-            final int minZ = min.getBlockZ();
-            final int maxX = max.getBlockX();
-            final int maxY = max.getBlockY();
-            final int maxZ = max.getBlockZ();
-
-            for (int x = minX; x <= maxX; ++x) {
-                for (int y = minY; y <= maxY; ++y) {
-                    for (int z = minZ; z <= maxZ; ++z) {
-                        final Vector pt = new Vector(x, y, z);
-
-                        final int id = this.getBlockType(pt);
-
-                        if (map.containsKey(id)) {
-                            map.get(id).increment();
-                        } else {
-                            final Countable<Integer> c = new Countable<Integer>(id, 1);
-                            map.put(id, c);
-                            distribution.add(c);
-                        }
-                    }
+            final int[] counts = this.getCombinedIdCounts((CuboidRegion) region);
+            final int[] idCounts = new int[counts.length >> 4];
+            for (int combined = 0; combined < counts.length; combined++) {
+                idCounts[combined >> 4] += counts[combined];
+            }
+            for (int id = 0; id < idCounts.length; id++) {
+                if (idCounts[id] != 0) {
+                    distribution.add(new Countable<Integer>(id, idCounts[id]));
                 }
             }
         } else {
@@ -2338,34 +2406,14 @@ public class EditSession implements Extent {
     public List<Countable<BaseBlock>> getBlockDistributionWithData(final Region region) {
         final List<Countable<BaseBlock>> distribution = new ArrayList<Countable<BaseBlock>>();
         final Map<BaseBlock, Countable<BaseBlock>> map = new HashMap<BaseBlock, Countable<BaseBlock>>();
+        queue.prefetch(region);
 
         if (region instanceof CuboidRegion) {
             // Doing this for speed
-            final Vector min = region.getMinimumPoint();
-            final Vector max = region.getMaximumPoint();
-
-            final int minX = min.getBlockX();
-            final int minY = min.getBlockY();
-            final int minZ = min.getBlockZ();
-            final int maxX = max.getBlockX();
-            final int maxY = max.getBlockY();
-            final int maxZ = max.getBlockZ();
-
-            for (int x = minX; x <= maxX; ++x) {
-                for (int y = minY; y <= maxY; ++y) {
-                    for (int z = minZ; z <= maxZ; ++z) {
-                        final Vector pt = new Vector(x, y, z);
-
-                        final BaseBlock blk = FaweCache.getBlock(this.getBlockType(pt), this.getBlockData(pt));
-
-                        if (map.containsKey(blk)) {
-                            map.get(blk).increment();
-                        } else {
-                            final Countable<BaseBlock> c = new Countable<BaseBlock>(blk, 1);
-                            map.put(blk, c);
-                            distribution.add(c);
-                        }
-                    }
+            final int[] counts = this.getCombinedIdCounts((CuboidRegion) region);
+            for (int combined = 0; combined < counts.length; combined++) {
+                if (counts[combined] != 0) {
+                    distribution.add(new Countable<BaseBlock>(FaweCache.getBlock(combined >> 4, combined & 15), counts[combined]));
                 }
             }
         } else {
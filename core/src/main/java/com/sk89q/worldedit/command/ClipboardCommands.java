@@ -171,6 +171,7 @@ public class ClipboardCommands {
 
 
         clipboard.setOrigin(session.getPlacementPosition(player));
+        editSession.getQueue().prefetch(region);
         ForwardExtentCopy copy = new ForwardExtentCopy(editSession, region, clipboard, region.getMinimumPoint());
         if (mask != null) {
             copy.setSourceMask(mask);
@@ -202,6 +203,7 @@ public class ClipboardCommands {
 
         BlockArrayClipboard clipboard = new BlockArrayClipboard(region, player.getUniqueId());
         clipboard.setOrigin(session.getPlacementPosition(player));
+        editSession.getQueue().prefetch(region);
         ForwardExtentCopy copy = new ForwardExtentCopy(editSession, region, clipboard, region.getMinimumPoint());
         copy.setSourceFunction(new BlockReplace(editSession, leavePattern));
         if (mask != null) {
@@ -2,11 +2,13 @@ package com.boydti.fawe.forge.v0;
 
 import com.boydti.fawe.Fawe;
 import com.boydti.fawe.FaweCache;
+import com.boydti.fawe.config.Settings;
 import com.boydti.fawe.example.CharFaweChunk;
 import com.boydti.fawe.example.NMSMappedFaweQueue;
 import com.boydti.fawe.object.BytePair;
 import com.boydti.fawe.object.FaweChunk;
 import com.boydti.fawe.object.RunnableVal;
+import com.boydti.fawe.object.collection.ObjectPool;
 import com.boydti.fawe.util.MainUtil;
 import com.boydti.fawe.util.MathMan;
 import com.boydti.fawe.util.ReflectionUtils;
@@ -37,6 +39,7 @@ import net.minecraft.init.Blocks;
 import net.minecraft.nbt.NBTBase;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.network.play.server.SPacketChunkData;
+import net.minecraft.network.play.server.SPacketMultiBlockChange;
 import net.minecraft.server.management.PlayerChunkMap;
 import net.minecraft.server.management.PlayerChunkMapEntry;
 import net.minecraft.tileentity.TileEntity;
@@ -199,6 +202,29 @@ public class ForgeQueue_All extends NMSMappedFaweQueue<World, Chunk, ExtendedBlo
         }
     }
 
+    @Override
+    public void getSectionSnapshot(ExtendedBlockStorage section, char[] snapshot) {
+        BlockStateContainer data = section.getData();
+        // Sections usually contain few block states, so only convert when the state changes
+        IBlockState last = null;
+        char combined = 0;
+        int index = 0;
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    IBlockState ibd = data.get(x, y, z);
+                    if (ibd != last) {
+                        last = ibd;
+                        Block block = ibd.getBlock();
+                        int id = Block.getIdFromBlock(block);
+                        combined = (char) (FaweCache.hasData(id) ? (id << 4) + block.getMetaFromState(ibd) : id << 4);
+                    }
+                    snapshot[index++] = combined;
+                }
+            }
+        }
+    }
+
     @Override
     public boolean isChunkLoaded(World world, int x, int z) {
         return world.getChunkProvider().getLoadedChunk(x, z) != null;
@@ -225,7 +251,7 @@ public class ForgeQueue_All extends NMSMappedFaweQueue<World, Chunk, ExtendedBlo
                 ExtendedBlockStorage section = sections[layer];
                 if (section != null) {
                     short solid = 0;
-                    char[] previousLayer = idPrevious[layer] = new char[4096];
+                    char[] previousLayer = idPrevious[layer] = CharFaweChunk.newSection();
                     BlockStateContainer blocks = section.getData();
                     for (int j = 0; j < 4096; j++) {
                         int x = FaweCache.CACHE_X[0][j];
@@ -548,6 +574,44 @@ public class ForgeQueue_All extends NMSMappedFaweQueue<World, Chunk, ExtendedBlo
         }
     }
 
+    @Override
+    public boolean sendBlockChanges(int x, int z, short[] positions, int length) {
+        Chunk nmsChunk = getWorld().getChunkProvider().getLoadedChunk(x, z);
+        if (nmsChunk == null) {
+            return true;
+        }
+        try {
+            PlayerChunkMapEntry chunkMapEntry = ((WorldServer) nmsChunk.getWorld()).getPlayerChunkMap().getEntry(x, z);
+            if (chunkMapEntry == null) {
+                return true;
+            }
+            final ArrayDeque<EntityPlayerMP> players = new ArrayDeque<>();
+            chunkMapEntry.hasPlayerMatching(input -> {
+                players.add(input);
+                return false;
+            });
+            SPacketMultiBlockChange packet = new SPacketMultiBlockChange(length, positions, nmsChunk);
+            for (EntityPlayerMP player : players) {
+                player.connection.sendPacket(packet);
+            }
+            return true;
+        } catch (Throwable e) {
+            MainUtil.handleError(e);
+            return false;
+        }
+    }
+
+    @Override
+    public long[] getPlayerChunks() {
+        List<EntityPlayer> players = getWorld().playerEntities;
+        long[] chunks = new long[players.size()];
+        for (int i = 0; i < chunks.length; i++) {
+            EntityPlayer player = players.get(i);
+            chunks[i] = MathMan.pairInt((int) Math.floor(player.posX) >> 4, (int) Math.floor(player.posZ) >> 4);
+        }
+        return chunks;
+    }
+
     public boolean hasEntities(Chunk nmsChunk) {
         ClassInheritanceMultiMap<Entity>[] entities = nmsChunk.getEntityLists();
         for (int i = 0; i < entities.length; i++) {
@@ -560,9 +624,24 @@ public class ForgeQueue_All extends NMSMappedFaweQueue<World, Chunk, ExtendedBlo
     }
 
 
+    private static final ObjectPool<ForgeChunk_All> CHUNK_POOL = new ObjectPool<>(Settings.QUEUE.POOL.CHUNKS);
+
     @Override
     public FaweChunk<Chunk> getFaweChunk(int x, int z) {
-        return new ForgeChunk_All(this, x, z);
+        ForgeChunk_All chunk = CHUNK_POOL.poll();
+        if (chunk == null) {
+            return new ForgeChunk_All(this, x, z);
+        }
+        chunk.setLoc(this, x, z);
+        return chunk;
+    }
+
+    @Override
+    public void recycle(FaweChunk chunk) {
+        if (Settings.QUEUE.POOL.ENABLED && chunk instanceof ForgeChunk_All) {
+            chunk.reset();
+            CHUNK_POOL.offer((ForgeChunk_All) chunk);
+        }
     }
 
     @Override
@@ -621,6 +700,11 @@ public class ForgeQueue_All extends NMSMappedFaweQueue<World, Chunk, ExtendedBlo
         section.getSkylightArray().set(x & 15, y & 15, z & 15, value);
     }
 
+    @Override
+    public void fillSkyLight(ExtendedBlockStorage section, int layer, int value) {
+        Arrays.fill(section.getSkylightArray().getData(), (byte) (value | (value << 4)));
+    }
+
     @Override
     public void setBlockLight(ExtendedBlockStorage section, int x, int y, int z, int value) {
         section.getBlocklightArray().set(x & 15, y & 15, z & 15, value);
@@ -616,6 +616,11 @@ public class ForgeQueue_All extends NMSMappedFaweQueue<World, Chunk, ExtendedBlo
         section.getSkylightArray().set(x & 15, y & 15, z & 15, value);
     }
 
+    @Override
+    public void fillSkyLight(ExtendedBlockStorage section, int layer, int value) {
+        Arrays.fill(section.getSkylightArray().data, (byte) (value | (value << 4)));
+    }
+
     @Override
     public void setBlockLight(ExtendedBlockStorage section, int x, int y, int z, int value) {
         section.getBlocklightArray().set(x & 15, y & 15, z & 15, value);
@@ -2,11 +2,13 @@ package com.boydti.fawe.forge.v0;
 
 import com.boydti.fawe.Fawe;
 import com.boydti.fawe.FaweCache;
+import com.boydti.fawe.config.Settings;
 import com.boydti.fawe.example.CharFaweChunk;
 import com.boydti.fawe.example.NMSMappedFaweQueue;
 import com.boydti.fawe.object.BytePair;
 import com.boydti.fawe.object.FaweChunk;
 import com.boydti.fawe.object.RunnableVal;
+import com.boydti.fawe.object.collection.ObjectPool;
 import com.boydti.fawe.util.MainUtil;
 import com.boydti.fawe.util.MathMan;
 import com.boydti.fawe.util.ReflectionUtils;
@@ -162,6 +164,11 @@ public class ForgeQueue_All extends NMSMappedFaweQueue<World, Chunk, ExtendedBlo
         return ls.getData()[FaweCache.CACHE_J[y][x & 15][z & 15]];
     }
 
+    @Override
+    public void getSectionSnapshot(ExtendedBlockStorage section, char[] snapshot) {
+        System.arraycopy(section.getData(), 0, snapshot, 0, 4096);
+    }
+
     @Override
     public boolean isChunkLoaded(World world, int x, int z) {
         return world.getChunkProvider().chunkExists(x, z);
@@ -187,7 +194,8 @@ public class ForgeQueue_All extends NMSMappedFaweQueue<World, Chunk, ExtendedBlo
             if (fs.getCount(layer) != 0 || all) {
                 ExtendedBlockStorage section = sections[layer];
                 if (section != null) {
-                    idPrevious[layer] = section.getData().clone();
+                    idPrevious[layer] = CharFaweChunk.newSection();
+                    System.arraycopy(section.getData(), 0, idPrevious[layer], 0, 4096);
                     short solid = 0;
                     for (int combined : idPrevious[layer]) {
                         if (combined > 1) {
@@ -357,11 +365,11 @@ public class ForgeQueue_All extends NMSMappedFaweQueue<World, Chunk, ExtendedBlo
 
                 if ((section == null)) {
                     section = new ExtendedBlockStorage(j << 4, flag);
-                    section.setData(newArray);
+                    section.setData(fs.adoptIdArray(j));
                     sections[j] = section;
                     continue;
                 } else if (count >= 4096){
-                    section.setData(newArray);
+                    section.setData(fs.adoptIdArray(j));
                     setCount(0, count - fs.getAir(j), section);
                     continue;
                 }
@@ -503,9 +511,24 @@ public class ForgeQueue_All extends NMSMappedFaweQueue<World, Chunk, ExtendedBlo
     }
 
 
+    private static final ObjectPool<ForgeChunk_All> CHUNK_POOL = new ObjectPool<>(Settings.QUEUE.POOL.CHUNKS);
+
     @Override
     public FaweChunk<Chunk> getFaweChunk(int x, int z) {
-        return new ForgeChunk_All(this, x, z);
+        ForgeChunk_All chunk = CHUNK_POOL.poll();
+        if (chunk == null) {
+            return new ForgeChunk_All(this, x, z);
+        }
+        chunk.setLoc(this, x, z);
+        return chunk;
+    }
+
+    @Override
+    public void recycle(FaweChunk chunk) {
+        if (Settings.QUEUE.POOL.ENABLED && chunk instanceof ForgeChunk_All) {
+            chunk.reset();
+            CHUNK_POOL.offer((ForgeChunk_All) chunk);
+        }
     }
 
     public int getId(ExtendedBlockStorage[] sections, int x, int y, int z) {
@@ -580,6 +603,11 @@ public class ForgeQueue_All extends NMSMappedFaweQueue<World, Chunk, ExtendedBlo
         section.getSkylightArray().set(x & 15, y & 15, z & 15, value);
     }
 
+    @Override
+    public void fillSkyLight(ExtendedBlockStorage section, int layer, int value) {
+        Arrays.fill(section.getSkylightArray().getData(), (byte) (value | (value << 4)));
+    }
+
     @Override
     public void setBlockLight(ExtendedBlockStorage section, int x, int y, int z, int value) {
         section.getBlocklightArray().set(x & 15, y & 15, z & 15, value);
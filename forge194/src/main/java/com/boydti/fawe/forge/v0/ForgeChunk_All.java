@@ -34,6 +34,12 @@ public class ForgeChunk_All extends CharFaweChunk<Chunk> {
         return world.getChunkProvider().provideChunk(getX(), getZ());
     }
 
+    @Override
+    public void reset() {
+        super.reset();
+        sectionPalettes = null;
+    }
+
     @Override
     public CharFaweChunk<Chunk> copy(boolean shallow) {
         ForgeChunk_All value = (ForgeChunk_All) super.copy(shallow);
@@ -2,12 +2,14 @@ package com.boydti.fawe.sponge.v1_8;
 
 import com.boydti.fawe.Fawe;
 import com.boydti.fawe.FaweCache;
+import com.boydti.fawe.config.Settings;
 import com.boydti.fawe.example.CharFaweChunk;
 import com.boydti.fawe.example.NMSMappedFaweQueue;
 import com.boydti.fawe.object.BytePair;
 import com.boydti.fawe.object.FaweChunk;
 import com.boydti.fawe.object.PseudoRandom;
 import com.boydti.fawe.object.RunnableVal;
+import com.boydti.fawe.object.collection.ObjectPool;
 import com.boydti.fawe.util.MainUtil;
 import com.boydti.fawe.util.MathMan;
 import com.boydti.fawe.util.ReflectionUtils;
@@ -247,7 +249,8 @@ public class SpongeQueue_1_8 extends NMSMappedFaweQueue<World, net.minecraft.wor
             if (fs.getCount(layer) != 0 || all) {
                 ExtendedBlockStorage section = sections[layer];
                 if (section != null) {
-                    idPrevious[layer] = section.getData().clone();
+                    idPrevious[layer] = CharFaweChunk.newSection();
+                    System.arraycopy(section.getData(), 0, idPrevious[layer], 0, 4096);
                     short solid = 0;
                     for (int combined : idPrevious[layer]) {
                         if (combined > 1) {
@@ -415,11 +418,11 @@ public class SpongeQueue_1_8 extends NMSMappedFaweQueue<World, net.minecraft.wor
 
                 if ((section == null)) {
                     section = new ExtendedBlockStorage(j << 4, flag);
-                    section.setData(newArray);
+                    section.setData(fs.adoptIdArray(j));
                     sections[j] = section;
                     continue;
                 } else if (count >= 4096){
-                    section.setData(newArray);
+                    section.setData(fs.adoptIdArray(j));
                     setCount(0, count - fs.getAir(j), section);
                     continue;
                 }
@@ -516,9 +519,24 @@ public class SpongeQueue_1_8 extends NMSMappedFaweQueue<World, net.minecraft.wor
         fieldNonEmptyBlockCount.set(section, nonEmptyBlockCount);
     }
 
+    private static final ObjectPool<SpongeChunk_1_8> CHUNK_POOL = new ObjectPool<>(Settings.QUEUE.POOL.CHUNKS);
+
     @Override
     public FaweChunk<net.minecraft.world.chunk.Chunk> getFaweChunk(int x, int z) {
-        return new SpongeChunk_1_8(this, x, z);
+        SpongeChunk_1_8 chunk = CHUNK_POOL.poll();
+        if (chunk == null) {
+            return new SpongeChunk_1_8(this, x, z);
+        }
+        chunk.setLoc(this, x, z);
+        return chunk;
+    }
+
+    @Override
+    public void recycle(FaweChunk chunk) {
+        if (Settings.QUEUE.POOL.ENABLED && chunk instanceof SpongeChunk_1_8) {
+            chunk.reset();
+            CHUNK_POOL.offer((SpongeChunk_1_8) chunk);
+        }
     }
 
 
@@ -676,5 +694,10 @@ public class SpongeQueue_1_8 extends NMSMappedFaweQueue<World, net.minecraft.wor
         return chars[FaweCache.CACHE_J[y][x & 15][z & 15]];
     }
 
+    @Override
+    public void getSectionSnapshot(char[] section, char[] snapshot) {
+        System.arraycopy(section, 0, snapshot, 0, 4096);
+    }
+
 
 }
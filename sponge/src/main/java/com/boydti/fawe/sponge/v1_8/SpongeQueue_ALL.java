@@ -455,4 +455,9 @@ public class SpongeQueue_ALL extends NMSMappedFaweQueue<World, net.minecraft.wor
     public int getCombinedId4Data(char[] chars, int x, int y, int z) {
         return chars[FaweCache.CACHE_J[y][x & 15][z & 15]];
     }
+
+    @Override
+    public void getSectionSnapshot(char[] section, char[] snapshot) {
+        System.arraycopy(section, 0, snapshot, 0, 4096);
+    }
 }